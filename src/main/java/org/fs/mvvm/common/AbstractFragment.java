@@ -15,6 +15,7 @@
  */
 package org.fs.mvvm.common;
 
+import android.arch.lifecycle.Lifecycle;
 import android.content.Context;
 import android.content.Intent;
 import android.databinding.DataBindingUtil;
@@ -65,15 +66,18 @@ public abstract class AbstractFragment<V extends AbstractViewModel<?>>
     viewDataBinding.setVariable(viewModelRes(), viewModel);
     viewModel.restoreState(savedInstanceState != null ? savedInstanceState: getArguments());
     viewModel.onCreate();
+    viewModel.dispatchLifecycleEvent(Lifecycle.Event.ON_CREATE);
   }
 
   @Override public void onStart() {
     super.onStart();
     viewModel.onStart();
+    viewModel.dispatchLifecycleEvent(Lifecycle.Event.ON_START);
   }
 
   @Override public void onStop() {
     viewModel.onStop();
+    viewModel.dispatchLifecycleEvent(Lifecycle.Event.ON_STOP);
     super.onStop();
   }
 
@@ -84,15 +88,18 @@ public abstract class AbstractFragment<V extends AbstractViewModel<?>>
   @Override public void onResume() {
     super.onResume();
     viewModel.onResume();
+    viewModel.dispatchLifecycleEvent(Lifecycle.Event.ON_RESUME);
   }
 
   @Override public void onPause() {
     viewModel.onPause();
+    viewModel.dispatchLifecycleEvent(Lifecycle.Event.ON_PAUSE);
     super.onPause();
   }
 
   @Override public void onDestroy() {
     viewModel.onDestroy();
+    viewModel.dispatchLifecycleEvent(Lifecycle.Event.ON_DESTROY);
     super.onDestroy();
   }
 
@@ -0,0 +1,70 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Base of events that are pooled by {@link EventPool} instead of being allocated for each
+ * send. Event is acquired with one reference that is handed over to {@link BusManager} on
+ * send, and it goes back to its pool once every subscriber has seen it.
+ *
+ * Subscribers that keep event or use it on another thread, outside of what bus hands over
+ * itself, should {@link #retain()} it and {@link #release()} it when they are done.
+ * Recyclable events can not be sent as sticky. Bounded subscribers retain events while they
+ * wait in their buffer and release them when they are delivered or dropped.
+ */
+public abstract class AbstractRecyclableEvent implements EventType {
+
+  private final AtomicInteger references = new AtomicInteger(0);
+  private EventPool<AbstractRecyclableEvent> pool;
+
+  void acquired(EventPool<AbstractRecyclableEvent> pool) {
+    this.pool = pool;
+    references.set(1);
+  }
+
+  public final void retain() {
+    references.incrementAndGet();
+  }
+
+  public final void release() {
+    if (references.decrementAndGet() == 0) {
+      reset();
+      final EventPool<AbstractRecyclableEvent> owner = pool;
+      if (owner != null) {
+        owner.recycle(this);
+      }
+    }
+  }
+
+  /**
+   * Clears state of event before it goes back to its pool
+   */
+  protected abstract void reset();
+
+  static void retainIfRecyclable(EventType event) {
+    if (event instanceof AbstractRecyclableEvent) {
+      ((AbstractRecyclableEvent) event).retain();
+    }
+  }
+
+  static void releaseIfRecyclable(EventType event) {
+    if (event instanceof AbstractRecyclableEvent) {
+      ((AbstractRecyclableEvent) event).release();
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import io.reactivex.Scheduler;
+import io.reactivex.exceptions.MissingBackpressureException;
+import io.reactivex.functions.Consumer;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Subscription that receives events on its scheduler through a buffer of fixed capacity, buffer
+ * is the only place events wait for their drain, so at most capacity of them are pending and
+ * overflow is handled by {@link OverflowPolicy} of subscription. Recyclable events are retained
+ * while they wait and released once they are delivered or dropped.
+ *
+ * @param <E> type of event
+ */
+class BoundedEventSubscription<E extends EventType> extends EventSubscription<E> implements Runnable {
+
+  private final Scheduler scheduler;
+  private final int capacity;
+  private final OverflowPolicy policy;
+  private final BoundedSubscription subscription;
+  private final ArrayDeque<EventType> buffer;
+  private final AtomicInteger wip = new AtomicInteger(0);
+
+  BoundedEventSubscription(BusManager bus, Class<E> type, Consumer<? super E> consumer, Scheduler scheduler,
+      int capacity, OverflowPolicy policy, BoundedSubscription subscription) {
+    super(bus, type, consumer);
+    this.scheduler = scheduler;
+    this.capacity = policy == OverflowPolicy.KEEP_LATEST ? 1 : capacity;
+    this.policy = policy;
+    this.subscription = subscription;
+    this.buffer = new ArrayDeque<>(this.capacity);
+  }
+
+  @Override void deliver(EventType event) {
+    if (isDisposed()) {
+      return;
+    }
+    boolean overflow = false;
+    EventType dropped = null;
+    synchronized (buffer) {
+      if (buffer.size() < capacity) {
+        AbstractRecyclableEvent.retainIfRecyclable(event);
+        buffer.offer(event);
+      } else if (policy == OverflowPolicy.ERROR) {
+        overflow = true;
+      } else {
+        dropped = buffer.poll();
+        AbstractRecyclableEvent.retainIfRecyclable(event);
+        buffer.offer(event);
+      }
+    }
+    if (dropped != null) {
+      subscription.onOverflow();
+      AbstractRecyclableEvent.releaseIfRecyclable(dropped);
+    }
+    if (overflow) {
+      subscription.onOverflow();
+      onError(new MissingBackpressureException("buffer of " + capacity + " events is full"));
+    } else if (wip.getAndIncrement() == 0) {
+      scheduler.scheduleDirect(this);
+    }
+    if (isDisposed()) {
+      // disposed while event was added, nothing drains it anymore
+      clear();
+    }
+  }
+
+  @Override public void run() {
+    int missed = 1;
+    for (;;) {
+      for (;;) {
+        if (isDisposed()) {
+          clear();
+          return;
+        }
+        final EventType event;
+        synchronized (buffer) {
+          event = buffer.poll();
+        }
+        if (event == null) {
+          break;
+        }
+        try {
+          consume(event);
+        } finally {
+          AbstractRecyclableEvent.releaseIfRecyclable(event);
+        }
+      }
+      missed = wip.addAndGet(-missed);
+      if (missed == 0) {
+        break;
+      }
+    }
+  }
+
+  @Override void onError(Throwable error) {
+    dispose();
+    subscription.onError(error);
+  }
+
+  @Override int pending() {
+    synchronized (buffer) {
+      return buffer.size();
+    }
+  }
+
+  @Override public void dispose() {
+    super.dispose();
+    clear();
+  }
+
+  private void clear() {
+    for (;;) {
+      final EventType event;
+      synchronized (buffer) {
+        event = buffer.poll();
+      }
+      if (event == null) {
+        break;
+      }
+      AbstractRecyclableEvent.releaseIfRecyclable(event);
+    }
+  }
+}
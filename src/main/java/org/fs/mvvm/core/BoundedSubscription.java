@@ -0,0 +1,90 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import io.reactivex.disposables.Disposable;
+import io.reactivex.exceptions.MissingBackpressureException;
+import io.reactivex.exceptions.OnErrorNotImplementedException;
+import io.reactivex.plugins.RxJavaPlugins;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Disposable of a bounded subscriber registered on {@link BusManager}, it also counts
+ * events that were shed by {@link OverflowPolicy} of the subscriber and keeps the error
+ * that terminated it.
+ */
+public final class BoundedSubscription implements Disposable {
+
+  private final AtomicLong dropped = new AtomicLong(0L);
+
+  private volatile Disposable upstream;
+  private volatile boolean disposed;
+  private volatile Throwable error;
+
+  BoundedSubscription() {
+  }
+
+  void setUpstream(Disposable upstream) {
+    this.upstream = upstream;
+    if (disposed) {
+      upstream.dispose();
+    }
+  }
+
+  void onOverflow() {
+    dropped.incrementAndGet();
+  }
+
+  void onError(Throwable error) {
+    this.error = error;
+    disposed = true;
+    // overflow is expected under ERROR policy, a failing consumer is reported like other subscribers
+    if (!(error instanceof MissingBackpressureException)) {
+      RxJavaPlugins.onError(new OnErrorNotImplementedException(error));
+    }
+  }
+
+  /**
+   * Count of events dropped since this subscriber is registered
+   *
+   * @return count of dropped events
+   */
+  public long dropped() {
+    return dropped.get();
+  }
+
+  /**
+   * Error that terminated this subscriber, such as {@link MissingBackpressureException} when
+   * buffer of an {@link OverflowPolicy#ERROR} subscriber overflows
+   *
+   * @return error or null if subscriber is not terminated by an error
+   */
+  public Throwable error() {
+    return error;
+  }
+
+  @Override public void dispose() {
+    disposed = true;
+    final Disposable disposable = upstream;
+    if (disposable != null) {
+      disposable.dispose();
+    }
+  }
+
+  @Override public boolean isDisposed() {
+    return disposed;
+  }
+}
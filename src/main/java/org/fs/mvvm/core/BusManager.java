@@ -15,19 +15,127 @@
  */
 package org.fs.mvvm.core;
 
+import android.arch.lifecycle.Lifecycle;
+import android.arch.lifecycle.LifecycleOwner;
+import io.reactivex.Scheduler;
+import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+import io.reactivex.functions.BiConsumer;
 import io.reactivex.functions.Consumer;
 import io.reactivex.subjects.PublishSubject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.fs.mvvm.utils.Preconditions;
 
 public final class BusManager {
 
   private final static BusManager IMPL = new BusManager();
+
+  private final static int DEFAULT_STICKY_SIZE = 1;
+  private final static long DEFAULT_STICKY_AGE = 5L * 60L * 1000L;
+  private final static int DEFAULT_RING_SIZE = 1024;
+  private final static int DEFAULT_BATCH_SIZE = 64;
+  private final static long DEFAULT_LANE_BUDGET = 4L * 1000000L;
+  private final static long NO_SEQUENCE = -1L;
+
   private final PublishSubject<EventType> rxBus = PublishSubject.create();
 
+  // subscribers indexed by the class they registered for, arrays are copied on write
+  private final ConcurrentHashMap<Class<?>, EventSubscription<?>[]> subscribers = new ConcurrentHashMap<>();
+  // event class to itself and all of its EventType supertypes
+  private final ConcurrentHashMap<Class<?>, Class<?>[]> hierarchies = new ConcurrentHashMap<>();
+
+  private final StickyCache stickyCache = new StickyCache(DEFAULT_STICKY_SIZE, DEFAULT_STICKY_AGE);
+  private final EventCoalescer coalescer = new EventCoalescer(this);
+  private final PriorityDispatcher lanes = new PriorityDispatcher(this, DEFAULT_LANE_BUDGET);
+  private volatile RingBufferDispatcher dispatcher;
+
+  final BusMetrics metrics = new BusMetrics(this);
+
   <T extends EventType> void post(T event) {
     Preconditions.checkNotNull(event, "event is null");
+    publish(event, NO_SEQUENCE);
+  }
+
+  private void publish(EventType event, long sequence) {
+    if (metrics.isEnabled()) {
+      metrics.onEvent(event.getClass());
+    }
     rxBus.onNext(event);
+    dispatch(event, sequence);
+  }
+
+  <T extends EventType> void postSticky(T event) {
+    Preconditions.checkNotNull(event, "event is null");
+    Preconditions.checkConditionMeet(!(event instanceof AbstractRecyclableEvent), "recyclable events can not be sticky");
+    // put is ordered against snapshot and attach of registerSticky, delivery runs outside of
+    // lock and sequence lets a sticky subscriber drop an event it was already replayed
+    final long sequence;
+    synchronized (stickyCache) {
+      sequence = stickyCache.put(event);
+    }
+    publish(event, sequence);
+  }
+
+  <T extends KeyedEventType> void postCoalesced(T event) {
+    Preconditions.checkNotNull(event, "event is null");
+    coalescer.offer(event);
+  }
+
+  <T extends EventType> void post(T event, Priority priority) {
+    Preconditions.checkNotNull(event, "event is null");
+    Preconditions.checkNotNull(priority, "priority is null");
+    lanes.offer(event, priority);
+  }
+
+  <T extends EventType> boolean offer(T event) {
+    Preconditions.checkNotNull(event, "event is null");
+    return dispatcher().offer(event);
+  }
+
+  void configureDispatcher(Scheduler scheduler, int capacity, int batchSize) {
+    Preconditions.checkNotNull(scheduler, "scheduler is null");
+    Preconditions.checkConditionMeet(capacity > 0, "capacity must be positive");
+    Preconditions.checkConditionMeet(batchSize > 0, "batchSize must be positive");
+    synchronized (this) {
+      Preconditions.checkConditionMeet(dispatcher == null, "dispatcher is already started");
+      dispatcher = new RingBufferDispatcher(this, scheduler, capacity, batchSize);
+    }
+  }
+
+  RingBufferDispatcher dispatcher() {
+    RingBufferDispatcher ring = dispatcher;
+    if (ring == null) {
+      synchronized (this) {
+        ring = dispatcher;
+        if (ring == null) {
+          ring = new RingBufferDispatcher(this, AndroidSchedulers.mainThread(), DEFAULT_RING_SIZE, DEFAULT_BATCH_SIZE);
+          dispatcher = ring;
+        }
+      }
+    }
+    return ring;
+  }
+
+  RingBufferDispatcher peekDispatcher() {
+    return dispatcher;
+  }
+
+  void dispatch(EventType event, long sequence) {
+    final Class<?>[] types = hierarchyOf(event.getClass());
+    for (Class<?> type : types) {
+      final EventSubscription<?>[] array = subscribers.get(type);
+      if (array != null) {
+        for (EventSubscription<?> subscription : array) {
+          subscription.deliver(event, sequence);
+        }
+      }
+    }
   }
 
   Disposable register(Consumer<? super EventType> consumer) {
@@ -35,20 +143,420 @@ public final class BusManager {
     return rxBus.subscribe(consumer);
   }
 
+  <E extends EventType> Disposable register(Class<E> type, Consumer<? super E> consumer) {
+    Preconditions.checkNotNull(type, "type is null");
+    Preconditions.checkNotNull(consumer, "consumer as action is null");
+    return attach(new EventSubscription<>(this, type, consumer));
+  }
+
+  <E extends EventType> Disposable register(Class<E> type, Consumer<? super E> consumer, DeliveryTarget target) {
+    Preconditions.checkNotNull(type, "type is null");
+    Preconditions.checkNotNull(consumer, "consumer as action is null");
+    Preconditions.checkNotNull(target, "target is null");
+    return attach(new ScheduledEventSubscription<>(this, type, consumer, target.scheduler()));
+  }
+
+  <E extends EventType> Disposable register(LifecycleOwner owner, Class<E> type, Consumer<? super E> consumer) {
+    Preconditions.checkNotNull(owner, "owner is null");
+    Preconditions.checkNotNull(type, "type is null");
+    Preconditions.checkNotNull(consumer, "consumer as action is null");
+    final Lifecycle lifecycle = owner.getLifecycle();
+    if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+      return Disposables.disposed();
+    }
+    final LifecycleEventSubscription<E> subscription = new LifecycleEventSubscription<>(this, type, consumer, lifecycle);
+    lifecycle.addObserver(subscription);
+    return attach(subscription);
+  }
+
+  <T, E extends EventType> Disposable registerWeak(T target, Class<E> type, BiConsumer<? super T, ? super E> consumer) {
+    Preconditions.checkNotNull(target, "target is null");
+    Preconditions.checkNotNull(type, "type is null");
+    Preconditions.checkNotNull(consumer, "consumer as action is null");
+    return attach(new WeakEventSubscription<>(this, type, new WeakEventSubscription.WeakConsumer<T, E>(target, consumer)));
+  }
+
+  <E extends EventType> Disposable registerSticky(Class<E> type, Consumer<? super E> consumer) {
+    Preconditions.checkNotNull(type, "type is null");
+    Preconditions.checkNotNull(consumer, "consumer as action is null");
+    final StickyEventSubscription<E> subscription = new StickyEventSubscription<>(this, type, consumer);
+    final List<StickyCache.Entry> entries;
+    synchronized (stickyCache) {
+      entries = stickyCache.snapshot(type);
+      attach(subscription);
+    }
+    for (int i = 0, z = entries.size(); i < z; i++) {
+      final StickyCache.Entry entry = entries.get(i);
+      subscription.deliver(entry.event, entry.sequence);
+    }
+    return subscription;
+  }
+
+  void configureSticky(int maxPerType, long maxAge) {
+    Preconditions.checkConditionMeet(maxPerType > 0, "maxPerType must be positive");
+    Preconditions.checkConditionMeet(maxAge > 0L, "maxAge must be positive");
+    stickyCache.configure(maxPerType, maxAge);
+  }
+
+  void clearSticky(Class<? extends EventType> type) {
+    if (type == null) {
+      stickyCache.clear();
+    } else {
+      stickyCache.remove(type);
+    }
+  }
+
+  <E extends EventType> BoundedSubscription register(Class<E> type, Consumer<? super E> consumer,
+      Scheduler scheduler, int capacity, OverflowPolicy policy) {
+    Preconditions.checkNotNull(type, "type is null");
+    Preconditions.checkNotNull(consumer, "consumer as action is null");
+    Preconditions.checkNotNull(scheduler, "scheduler is null");
+    Preconditions.checkNotNull(policy, "policy is null");
+    Preconditions.checkConditionMeet(capacity > 0, "capacity must be positive");
+    final BoundedSubscription subscription = new BoundedSubscription();
+    subscription.setUpstream(attach(new BoundedEventSubscription<>(this, type, consumer, scheduler, capacity, policy,
+        subscription)));
+    return subscription;
+  }
+
   void unregister(Disposable disposable) {
     if (disposable != null && !disposable.isDisposed()) {
       disposable.dispose();
     }
   }
 
+  <S extends EventSubscription<?>> S attach(S subscription) {
+    synchronized (subscribers) {
+      final EventSubscription<?>[] array = subscribers.get(subscription.type);
+      final EventSubscription<?>[] newArray;
+      if (array == null) {
+        newArray = new EventSubscription<?>[] { subscription };
+      } else {
+        newArray = new EventSubscription<?>[array.length + 1];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        newArray[array.length] = subscription;
+      }
+      subscribers.put(subscription.type, newArray);
+    }
+    return subscription;
+  }
+
+  void detach(EventSubscription<?> subscription) {
+    synchronized (subscribers) {
+      final EventSubscription<?>[] array = subscribers.get(subscription.type);
+      if (array == null) {
+        return;
+      }
+      int index = -1;
+      for (int i = 0, z = array.length; i < z; i++) {
+        if (array[i] == subscription) {
+          index = i;
+          break;
+        }
+      }
+      if (index < 0) {
+        return;
+      }
+      if (array.length == 1) {
+        subscribers.remove(subscription.type);
+      } else {
+        final EventSubscription<?>[] newArray = new EventSubscription<?>[array.length - 1];
+        System.arraycopy(array, 0, newArray, 0, index);
+        System.arraycopy(array, index + 1, newArray, index, array.length - index - 1);
+        subscribers.put(subscription.type, newArray);
+      }
+    }
+  }
+
+  List<EventSubscription<?>> subscriptions() {
+    final List<EventSubscription<?>> all = new ArrayList<>();
+    for (EventSubscription<?>[] array : subscribers.values()) {
+      Collections.addAll(all, array);
+    }
+    return all;
+  }
+
+  private Class<?>[] hierarchyOf(Class<?> clazz) {
+    Class<?>[] types = hierarchies.get(clazz);
+    if (types == null) {
+      final Set<Class<?>> collected = new LinkedHashSet<>();
+      collectTypes(clazz, collected);
+      types = collected.toArray(new Class<?>[collected.size()]);
+      hierarchies.put(clazz, types);
+    }
+    return types;
+  }
+
+  private static void collectTypes(Class<?> clazz, Set<Class<?>> collected) {
+    if (clazz != null && EventType.class.isAssignableFrom(clazz) && collected.add(clazz)) {
+      collectTypes(clazz.getSuperclass(), collected);
+      for (Class<?> face : clazz.getInterfaces()) {
+        collectTypes(face, collected);
+      }
+    }
+  }
+
+  /**
+   * Sends event to subscribers on calling thread, if event is recyclable its reference is
+   * released once every subscriber has seen it
+   *
+   * @param event event to send
+   * @param <E> type of event
+   */
   public static <E extends EventType> void send(E event) {
-    IMPL.post(event);
+    try {
+      IMPL.post(event);
+    } finally {
+      AbstractRecyclableEvent.releaseIfRecyclable(event);
+    }
+  }
+
+  /**
+   * Sends event on main thread through lane of priority, higher lanes are drained first and
+   * lower lanes only get time budget that is left in each drain cycle, reference of a
+   * recyclable event is released after it is sent
+   *
+   * @param event event to send
+   * @param priority lane to send event through
+   * @param <E> type of event
+   */
+  public static <E extends EventType> void send(E event, Priority priority) {
+    IMPL.post(event, priority);
+  }
+
+  /**
+   * Sets time budget in milliseconds of each drain cycle of lanes on main thread, high lane is
+   * bounded by it too and lower lanes get what high lane leaves, default is four milliseconds
+   *
+   * @param budget budget in milliseconds
+   */
+  public static void setLaneBudget(long budget) {
+    Preconditions.checkConditionMeet(budget > 0L, "budget must be positive");
+    IMPL.lanes.setBudget(budget * 1000000L);
+  }
+
+  /**
+   * Sends event and keeps it in sticky cache, so subscribers registered later with
+   * {@link #addSticky(Class, Consumer)} are replayed with it
+   *
+   * @param event event to send
+   * @param <E> type of event
+   */
+  public static <E extends EventType> void sendSticky(E event) {
+    IMPL.postSticky(event);
+  }
+
+  /**
+   * Sends event at the end of current coalescing window on main thread, if another event
+   * of same class and key is sent in same window only latest one is delivered, reference of a
+   * recyclable event is released once it is delivered or replaced
+   *
+   * @param event event to send
+   * @param <E> type of event
+   */
+  public static <E extends KeyedEventType> void sendCoalesced(E event) {
+    IMPL.postCoalesced(event);
+  }
+
+  /**
+   * Sets coalescing window in milliseconds, zero aligns window to next display frame which is
+   * also the default
+   *
+   * @param window window in milliseconds or zero
+   */
+  public static void setCoalesceWindow(long window) {
+    Preconditions.checkConditionMeet(window >= 0L, "window can not be negative");
+    IMPL.coalescer.setWindow(window);
+  }
+
+  /**
+   * Count of events that were replaced by a later event of same key before being delivered
+   *
+   * @return count of coalesced events
+   */
+  public static long coalescedCount() {
+    return IMPL.coalescer.coalesced();
+  }
+
+  /**
+   * Hands event to ring buffer dispatcher without blocking caller, events are then sent in
+   * batches from single consumer thread of dispatcher, which is main thread unless configured
+   * with {@link #setDispatcher(Scheduler, int, int)}; reference of a recyclable event is
+   * released after it is sent, or right away if it is rejected
+   *
+   * @param event event to send
+   * @param <E> type of event
+   * @return true if event is queued, false if ring buffer is full
+   */
+  public static <E extends EventType> boolean enqueue(E event) {
+    return IMPL.offer(event);
+  }
+
+  /**
+   * Configures ring buffer dispatcher used by {@link #enqueue(EventType)}, it can only be
+   * called before first event is queued
+   *
+   * @param scheduler scheduler that consumer drains on
+   * @param capacity size of ring buffer, rounded up to power of two
+   * @param batchSize count of events drained before consumer yields its thread
+   */
+  public static void setDispatcher(Scheduler scheduler, int capacity, int batchSize) {
+    IMPL.configureDispatcher(scheduler, capacity, batchSize);
+  }
+
+  /**
+   * Count of events that {@link #enqueue(EventType)} rejected because ring buffer was full
+   *
+   * @return count of rejected events
+   */
+  public static long rejectedCount() {
+    final RingBufferDispatcher dispatcher = IMPL.peekDispatcher();
+    return dispatcher == null ? 0L : dispatcher.rejected();
+  }
+
+  /**
+   * Metrics of bus, they are disabled until {@link BusMetrics#setEnabled(boolean)} is called
+   *
+   * @return metrics of bus
+   */
+  public static BusMetrics metrics() {
+    return IMPL.metrics;
   }
 
   public static Disposable add(Consumer<? super EventType> callback) {
     return IMPL.register(callback);
   }
 
+  /**
+   * Registers callback only for events of type, or subtypes of it, so dispatch does not
+   * reach subscribers that would filter it out
+   *
+   * @param type class of event to receive
+   * @param callback callback to receive event
+   * @param <E> type of event
+   * @return disposable to remove registration
+   */
+  public static <E extends EventType> Disposable add(Class<E> type, Consumer<? super E> callback) {
+    return IMPL.register(type, callback);
+  }
+
+  /**
+   * Registers callback for events of type that receives them on thread of target, events
+   * that arrive while a delivery is pending are handed to target in same batch
+   *
+   * @param type class of event to receive
+   * @param callback callback to receive event
+   * @param target thread to receive events on
+   * @param <E> type of event
+   * @return disposable to remove registration
+   */
+  public static <E extends EventType> Disposable add(Class<E> type, Consumer<? super E> callback,
+      DeliveryTarget target) {
+    return IMPL.register(type, callback, target);
+  }
+
+  /**
+   * Registers callback for events of type until owner is destroyed, registration is removed
+   * on destroy of owner even if disposable is never passed to {@link #remove(Disposable)}.
+   * It must be called on main thread.
+   *
+   * @param owner owner of lifecycle, such as activity or fragment
+   * @param type class of event to receive
+   * @param callback callback to receive event
+   * @param <E> type of event
+   * @return disposable to remove registration earlier
+   */
+  public static <E extends EventType> Disposable add(LifecycleOwner owner, Class<E> type, Consumer<? super E> callback) {
+    return IMPL.register(owner, type, callback);
+  }
+
+  /**
+   * Registers callback for events of type that holds target weakly, callback receives target
+   * with each event so it must not capture target itself. Once target is collected
+   * registration is removed on next dispatch of type.
+   *
+   * @param target target to hold weakly
+   * @param type class of event to receive
+   * @param callback callback to receive target and event
+   * @param <T> type of target
+   * @param <E> type of event
+   * @return disposable to remove registration earlier
+   */
+  public static <T, E extends EventType> Disposable addWeak(T target, Class<E> type, BiConsumer<? super T, ? super E> callback) {
+    return IMPL.registerWeak(target, type, callback);
+  }
+
+  /**
+   * Registers callback that receives events of type on main thread through a bounded buffer,
+   * events that callback can not keep up with are shed by policy instead of piling up
+   *
+   * @param type class of event to receive
+   * @param callback callback to receive event
+   * @param capacity size of buffer
+   * @param policy what to do when buffer is full
+   * @param <E> type of event
+   * @return subscription to remove registration and read dropped count
+   */
+  public static <E extends EventType> BoundedSubscription add(Class<E> type, Consumer<? super E> callback,
+      int capacity, OverflowPolicy policy) {
+    return IMPL.register(type, callback, AndroidSchedulers.mainThread(), capacity, policy);
+  }
+
+  /**
+   * Registers callback that receives events of type on scheduler through a bounded buffer,
+   * events that callback can not keep up with are shed by policy instead of piling up
+   *
+   * @param type class of event to receive
+   * @param callback callback to receive event
+   * @param scheduler scheduler to receive events on
+   * @param capacity size of buffer
+   * @param policy what to do when buffer is full
+   * @param <E> type of event
+   * @return subscription to remove registration and read dropped count
+   */
+  public static <E extends EventType> BoundedSubscription add(Class<E> type, Consumer<? super E> callback,
+      Scheduler scheduler, int capacity, OverflowPolicy policy) {
+    return IMPL.register(type, callback, scheduler, capacity, policy);
+  }
+
+  /**
+   * Registers callback for events of type and replays sticky events of type, that are not
+   * expired yet, in the order they were sent before returning
+   *
+   * @param type class of event to receive
+   * @param callback callback to receive event
+   * @param <E> type of event
+   * @return disposable to remove registration
+   */
+  public static <E extends EventType> Disposable addSticky(Class<E> type, Consumer<? super E> callback) {
+    return IMPL.registerSticky(type, callback);
+  }
+
+  /**
+   * Configures how many sticky events are kept for each event class and how long, in
+   * milliseconds, they are kept; defaults are one event for five minutes
+   *
+   * @param maxPerType count of events kept for each class
+   * @param maxAge age of event in milliseconds
+   */
+  public static void setStickyPolicy(int maxPerType, long maxAge) {
+    IMPL.configureSticky(maxPerType, maxAge);
+  }
+
+  /**
+   * Removes sticky events of type, or subtypes of it
+   *
+   * @param type class of event
+   */
+  public static void removeSticky(Class<? extends EventType> type) {
+    Preconditions.checkNotNull(type, "type is null");
+    IMPL.clearSticky(type);
+  }
+
+  public static void clearSticky() {
+    IMPL.clearSticky(null);
+  }
+
   public static void remove(Disposable disposable) {
     IMPL.unregister(disposable);
   }
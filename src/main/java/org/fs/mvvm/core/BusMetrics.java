@@ -0,0 +1,271 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import android.os.SystemClock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.fs.mvvm.utils.LatencyHistogram;
+
+/**
+ * Optional metrics of {@link BusManager}, when enabled it counts events for each event class
+ * and records delivery latency of each indexed subscriber into a fixed bucket histogram, and
+ * reports subscribers that block delivery longer than threshold.
+ */
+public final class BusMetrics {
+
+  private final BusManager bus;
+  private final ConcurrentHashMap<Class<?>, AtomicLong> events = new ConcurrentHashMap<>();
+  private final Map<Class<?>, Long> lastCounts = new HashMap<>();
+
+  private volatile boolean enabled = false;
+  private volatile long slowThreshold = Long.MAX_VALUE;
+  private volatile SlowConsumerListener listener;
+
+  private long lastSnapshot = SystemClock.elapsedRealtime();
+
+  BusMetrics(BusManager bus) {
+    this.bus = bus;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Sets listener that is called on delivering thread when a subscriber takes longer than
+   * threshold to consume an event
+   *
+   * @param threshold threshold in milliseconds
+   * @param listener listener or null to remove it
+   */
+  public void setSlowConsumerListener(long threshold, SlowConsumerListener listener) {
+    this.slowThreshold = listener == null ? Long.MAX_VALUE : threshold * 1000000L;
+    this.listener = listener;
+  }
+
+  void onEvent(Class<?> type) {
+    AtomicLong count = events.get(type);
+    if (count == null) {
+      final AtomicLong newCount = new AtomicLong(0L);
+      count = events.putIfAbsent(type, newCount);
+      if (count == null) {
+        count = newCount;
+      }
+    }
+    count.incrementAndGet();
+  }
+
+  void onDelivered(EventSubscription<?> subscription, long nanos) {
+    subscription.histogram().record(nanos);
+    if (nanos > slowThreshold) {
+      final SlowConsumerListener callback = listener;
+      if (callback != null) {
+        callback.onSlowConsumer(subscription.name(), subscription.type, nanos / 1000000L);
+      }
+    }
+  }
+
+  /**
+   * Takes snapshot of metrics, rate of events is measured since previous snapshot
+   *
+   * @return snapshot of metrics
+   */
+  public synchronized Snapshot snapshot() {
+    final long now = SystemClock.elapsedRealtime();
+    final long elapsed = Math.max(1L, now - lastSnapshot);
+    lastSnapshot = now;
+
+    final List<EventStats> eventStats = new ArrayList<>(events.size());
+    for (Map.Entry<Class<?>, AtomicLong> entry : events.entrySet()) {
+      final long count = entry.getValue().get();
+      final Long last = lastCounts.put(entry.getKey(), count);
+      final double rate = (count - (last == null ? 0L : last)) * 1000d / elapsed;
+      eventStats.add(new EventStats(entry.getKey(), count, rate));
+    }
+
+    final List<EventSubscription<?>> subscriptions = bus.subscriptions();
+    final List<SubscriberStats> subscriberStats = new ArrayList<>(subscriptions.size());
+    for (int i = 0, z = subscriptions.size(); i < z; i++) {
+      final EventSubscription<?> subscription = subscriptions.get(i);
+      final LatencyHistogram histogram = subscription.histogram();
+      subscriberStats.add(new SubscriberStats(subscription.name(), subscription.type,
+          histogram.count(), histogram.percentile(50d), histogram.percentile(90d),
+          histogram.percentile(99d), histogram.max(), subscription.pending()));
+    }
+
+    final RingBufferDispatcher dispatcher = bus.peekDispatcher();
+    return new Snapshot(now, Collections.unmodifiableList(eventStats),
+        Collections.unmodifiableList(subscriberStats),
+        dispatcher == null ? 0 : dispatcher.size(),
+        dispatcher == null ? 0L : dispatcher.rejected());
+  }
+
+  public interface SlowConsumerListener {
+
+    /**
+     * Called when subscriber took longer than threshold to consume an event
+     *
+     * @param subscriber name of subscriber
+     * @param type class subscriber is registered for
+     * @param millis time spent in milliseconds
+     */
+    void onSlowConsumer(String subscriber, Class<?> type, long millis);
+  }
+
+  public static final class Snapshot {
+
+    private final long timestamp;
+    private final List<EventStats> events;
+    private final List<SubscriberStats> subscribers;
+    private final int queueDepth;
+    private final long rejected;
+
+    Snapshot(long timestamp, List<EventStats> events, List<SubscriberStats> subscribers, int queueDepth,
+        long rejected) {
+      this.timestamp = timestamp;
+      this.events = events;
+      this.subscribers = subscribers;
+      this.queueDepth = queueDepth;
+      this.rejected = rejected;
+    }
+
+    /**
+     * Time of snapshot as {@link SystemClock#elapsedRealtime()}
+     */
+    public long getTimestamp() {
+      return timestamp;
+    }
+
+    public List<EventStats> getEvents() {
+      return events;
+    }
+
+    public List<SubscriberStats> getSubscribers() {
+      return subscribers;
+    }
+
+    /**
+     * Events waiting in ring buffer dispatcher
+     */
+    public int getQueueDepth() {
+      return queueDepth;
+    }
+
+    /**
+     * Events rejected by ring buffer dispatcher since start
+     */
+    public long getRejected() {
+      return rejected;
+    }
+  }
+
+  public static final class EventStats {
+
+    private final Class<?> type;
+    private final long count;
+    private final double perSecond;
+
+    EventStats(Class<?> type, long count, double perSecond) {
+      this.type = type;
+      this.count = count;
+      this.perSecond = perSecond;
+    }
+
+    public Class<?> getType() {
+      return type;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public double getPerSecond() {
+      return perSecond;
+    }
+  }
+
+  public static final class SubscriberStats {
+
+    private final String name;
+    private final Class<?> type;
+    private final long count;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long max;
+    private final int queueDepth;
+
+    SubscriberStats(String name, Class<?> type, long count, long p50, long p90, long p99, long max,
+        int queueDepth) {
+      this.name = name;
+      this.type = type;
+      this.count = count;
+      this.p50 = p50;
+      this.p90 = p90;
+      this.p99 = p99;
+      this.max = max;
+      this.queueDepth = queueDepth;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public Class<?> getType() {
+      return type;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * Latencies in microseconds
+     */
+    public long getP50() {
+      return p50;
+    }
+
+    public long getP90() {
+      return p90;
+    }
+
+    public long getP99() {
+      return p99;
+    }
+
+    public long getMax() {
+      return max;
+    }
+
+    /**
+     * Events waiting to be delivered to subscriber on its target thread
+     */
+    public int getQueueDepth() {
+      return queueDepth;
+    }
+  }
+}
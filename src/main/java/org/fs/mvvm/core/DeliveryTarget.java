@@ -0,0 +1,42 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import io.reactivex.Scheduler;
+import org.fs.mvvm.utils.RxUtility;
+
+public enum DeliveryTarget {
+
+  MAIN {
+    @Override Scheduler scheduler() {
+      return RxUtility.schedulers().main();
+    }
+  },
+
+  IO {
+    @Override Scheduler scheduler() {
+      return RxUtility.schedulers().io();
+    }
+  },
+
+  COMPUTATION {
+    @Override Scheduler scheduler() {
+      return RxUtility.schedulers().computation();
+    }
+  };
+
+  abstract Scheduler scheduler();
+}
@@ -0,0 +1,124 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import android.os.Looper;
+import android.view.Choreographer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects keyed events in a window and delivers only latest event for each key on main
+ * thread when window ends, window is either next display frame or a fixed delay.
+ */
+final class EventCoalescer implements Choreographer.FrameCallback, Runnable {
+
+  final static long FRAME_WINDOW = 0L;
+
+  private final BusManager bus;
+  private final Runnable scheduleFrame = () -> Choreographer.getInstance().postFrameCallback(this);
+
+  private Map<Key, KeyedEventType> pending = new LinkedHashMap<>();
+  private boolean scheduled = false;
+  private long coalesced = 0L;
+  private volatile long window = FRAME_WINDOW;
+
+  EventCoalescer(BusManager bus) {
+    this.bus = bus;
+  }
+
+  void setWindow(long window) {
+    this.window = window;
+  }
+
+  synchronized long coalesced() {
+    return coalesced;
+  }
+
+  void offer(KeyedEventType event) {
+    synchronized (this) {
+      final KeyedEventType replaced = pending.put(new Key(event.getClass(), event.key()), event);
+      if (replaced != null) {
+        coalesced++;
+        AbstractRecyclableEvent.releaseIfRecyclable(replaced);
+      }
+      if (scheduled) {
+        return;
+      }
+      scheduled = true;
+    }
+    final long delay = window;
+    if (delay == FRAME_WINDOW) {
+      if (Looper.myLooper() == Looper.getMainLooper()) {
+        scheduleFrame.run();
+      } else {
+        ThreadManager.runOnUiThread(scheduleFrame);
+      }
+    } else {
+      ThreadManager.runOnUiThreadDelayed(this, delay);
+    }
+  }
+
+  @Override public void doFrame(long frameTimeNanos) {
+    flush();
+  }
+
+  @Override public void run() {
+    flush();
+  }
+
+  private void flush() {
+    final Map<Key, KeyedEventType> events;
+    synchronized (this) {
+      events = pending;
+      pending = new LinkedHashMap<>();
+      scheduled = false;
+    }
+    final List<KeyedEventType> values = new ArrayList<>(events.values());
+    for (int i = 0, z = values.size(); i < z; i++) {
+      final KeyedEventType event = values.get(i);
+      try {
+        bus.post(event);
+      } finally {
+        AbstractRecyclableEvent.releaseIfRecyclable(event);
+      }
+    }
+  }
+
+  private static final class Key {
+
+    private final Class<?> type;
+    private final Object key;
+
+    Key(Class<?> type, Object key) {
+      this.type = type;
+      this.key = key;
+    }
+
+    @Override public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key)) return false;
+      final Key other = (Key) o;
+      return type == other.type && (key == null ? other.key == null : key.equals(other.key));
+    }
+
+    @Override public int hashCode() {
+      return 31 * type.hashCode() + (key == null ? 0 : key.hashCode());
+    }
+  }
+}
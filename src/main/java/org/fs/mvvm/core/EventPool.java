@@ -0,0 +1,76 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import android.support.v4.util.Pools;
+import org.fs.mvvm.utils.Preconditions;
+
+/**
+ * Pool of recyclable events of one type, after pool is warmed up acquiring and sending an
+ * event does not allocate.
+ *
+ * <pre><code>
+ * static final EventPool&lt;ProgressEvent&gt; POOL = EventPool.create(16, ProgressEvent::new);
+ *
+ * ProgressEvent event = POOL.acquire();
+ * event.progress = progress;
+ * BusManager.send(event);
+ * </code></pre>
+ *
+ * @param <E> type of event
+ */
+public final class EventPool<E extends AbstractRecyclableEvent> {
+
+  private final Pools.SynchronizedPool<E> pool;
+  private final Factory<E> factory;
+
+  public static <E extends AbstractRecyclableEvent> EventPool<E> create(int size, Factory<E> factory) {
+    return new EventPool<>(size, factory);
+  }
+
+  private EventPool(int size, Factory<E> factory) {
+    Preconditions.checkConditionMeet(size > 0, "size must be positive");
+    Preconditions.checkNotNull(factory, "factory is null");
+    this.pool = new Pools.SynchronizedPool<>(size);
+    this.factory = factory;
+  }
+
+  /**
+   * Event from pool, or a new one if pool is empty, that holds one reference
+   *
+   * @return event
+   */
+  @SuppressWarnings("unchecked")
+  public E acquire() {
+    E event = pool.acquire();
+    if (event == null) {
+      event = factory.create();
+    }
+    event.acquired((EventPool<AbstractRecyclableEvent>) this);
+    return event;
+  }
+
+  @SuppressWarnings("unchecked")
+  void recycle(AbstractRecyclableEvent event) {
+    // pool drops it if it is already full
+    pool.release((E) event);
+  }
+
+  public interface Factory<E> {
+
+    E create();
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import io.reactivex.disposables.Disposable;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.exceptions.OnErrorNotImplementedException;
+import io.reactivex.functions.Consumer;
+import io.reactivex.plugins.RxJavaPlugins;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.fs.mvvm.utils.LatencyHistogram;
+
+/**
+ * Subscription registered for a single {@link EventType} class, it is kept in
+ * {@link BusManager}'s subscriber index under that class and only receives events
+ * that are instances of it.
+ *
+ * @param <E> type of event
+ */
+class EventSubscription<E extends EventType> implements Disposable {
+
+  final Class<E> type;
+
+  private final BusManager bus;
+  private final Consumer<? super E> consumer;
+  private final AtomicBoolean disposed = new AtomicBoolean(false);
+
+  private volatile LatencyHistogram histogram;
+
+  EventSubscription(BusManager bus, Class<E> type, Consumer<? super E> consumer) {
+    this.bus = bus;
+    this.type = type;
+    this.consumer = consumer;
+  }
+
+  void deliver(EventType event) {
+    consume(event);
+  }
+
+  void deliver(EventType event, long sequence) {
+    deliver(event);
+  }
+
+  final void consume(EventType event) {
+    if (!disposed.get()) {
+      final BusMetrics metrics = bus.metrics;
+      final boolean measure = metrics.isEnabled();
+      final long start = measure ? System.nanoTime() : 0L;
+      try {
+        consumer.accept(type.cast(event));
+        if (measure) {
+          metrics.onDelivered(this, System.nanoTime() - start);
+        }
+      } catch (Throwable error) {
+        Exceptions.throwIfFatal(error);
+        onError(error);
+      }
+    }
+  }
+
+  void onError(Throwable error) {
+    // same contract as subscribe(Consumer) of PublishSubject, consumer is dropped on error
+    dispose();
+    RxJavaPlugins.onError(new OnErrorNotImplementedException(error));
+  }
+
+  LatencyHistogram histogram() {
+    LatencyHistogram latencies = histogram;
+    if (latencies == null) {
+      synchronized (this) {
+        latencies = histogram;
+        if (latencies == null) {
+          latencies = new LatencyHistogram();
+          histogram = latencies;
+        }
+      }
+    }
+    return latencies;
+  }
+
+  String name() {
+    return consumer.getClass().getName();
+  }
+
+  int pending() {
+    return 0;
+  }
+
+  @Override public void dispose() {
+    if (disposed.compareAndSet(false, true)) {
+      bus.detach(this);
+    }
+  }
+
+  @Override public boolean isDisposed() {
+    return disposed.get();
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import android.os.Looper;
+import android.view.Choreographer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects ui actions from any thread and runs them in one frame callback per display frame,
+ * actions run until time budget of frame is spent and the rest is carried to next frame.
+ */
+final class FrameDispatcher implements Choreographer.FrameCallback, Runnable {
+
+  private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+  private volatile long budget;
+
+  FrameDispatcher(long budget) {
+    this.budget = budget;
+  }
+
+  void setBudget(long budget) {
+    this.budget = budget;
+  }
+
+  void offer(Runnable action) {
+    queue.offer(action);
+    schedule();
+  }
+
+  @Override public void run() {
+    Choreographer.getInstance().postFrameCallback(this);
+  }
+
+  @Override public void doFrame(long frameTimeNanos) {
+    final long deadline = System.nanoTime() + budget;
+    try {
+      Runnable action;
+      while ((action = queue.poll()) != null) {
+        action.run();
+        if (System.nanoTime() >= deadline) {
+          break;
+        }
+      }
+    } finally {
+      scheduled.set(false);
+      if (!queue.isEmpty()) {
+        schedule();
+      }
+    }
+  }
+
+  private void schedule() {
+    if (scheduled.compareAndSet(false, true)) {
+      if (Looper.myLooper() == Looper.getMainLooper()) {
+        run();
+      } else {
+        ThreadManager.runOnUiThread(this);
+      }
+    }
+  }
+}
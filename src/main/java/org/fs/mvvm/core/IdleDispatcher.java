@@ -0,0 +1,76 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs low priority actions on main thread only when its message queue is idle, that is after
+ * frames and other messages are handled. Each idle pass runs actions within time budget, if
+ * actions are left a no-op message is posted so looper comes back to idle after pending
+ * messages instead of waiting for unrelated work.
+ */
+final class IdleDispatcher implements MessageQueue.IdleHandler, Runnable {
+
+  private final Handler handler;
+  private final long budget;
+  private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean installed = new AtomicBoolean(false);
+  private final Runnable wake = () -> { };
+
+  IdleDispatcher(Handler handler, long budget) {
+    this.handler = handler;
+    this.budget = budget;
+  }
+
+  void offer(Runnable action) {
+    queue.offer(action);
+    if (installed.compareAndSet(false, true)) {
+      if (Looper.myLooper() == Looper.getMainLooper()) {
+        run();
+      } else {
+        handler.post(this);
+      }
+    }
+  }
+
+  @Override public void run() {
+    Looper.myQueue().addIdleHandler(this);
+  }
+
+  @Override public boolean queueIdle() {
+    final long deadline = System.nanoTime() + budget;
+    Runnable action;
+    while ((action = queue.poll()) != null) {
+      action.run();
+      if (System.nanoTime() >= deadline) {
+        break;
+      }
+    }
+    if (queue.isEmpty()) {
+      installed.set(false);
+      // an action offered after isEmpty check keeps idle handler installed
+      return !queue.isEmpty() && installed.compareAndSet(false, true);
+    }
+    handler.post(wake);
+    return true;
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import android.os.Handler;
+import android.os.SystemClock;
+import java.util.Map;
+
+/**
+ * Single runnable that stands for a key on ui thread, triggers of a key only replace action
+ * and move or keep this one scheduled message, so they do not allocate. Task stays in its map
+ * while an action is pending, and after a throttled action runs until its window ends, then it
+ * removes itself so keys are not kept forever. All state is guarded by the map it belongs to.
+ */
+final class KeyedTask implements Runnable {
+
+  private final Handler handler;
+  private final Map<Object, KeyedTask> tasks;
+  private final Object key;
+
+  private Runnable action;
+  private boolean pending = false;
+  private long window = 0L;
+  private long lastRun = Long.MIN_VALUE / 2;
+
+  KeyedTask(Handler handler, Map<Object, KeyedTask> tasks, Object key) {
+    this.handler = handler;
+    this.tasks = tasks;
+    this.key = key;
+  }
+
+  void debounce(Runnable action, long delay) {
+    this.action = action;
+    this.pending = true;
+    handler.removeCallbacks(this);
+    handler.postDelayed(this, delay);
+  }
+
+  void throttle(Runnable action, long window) {
+    this.action = action;
+    this.window = window;
+    if (!pending) {
+      pending = true;
+      // drops message that only waits for window to end
+      handler.removeCallbacks(this);
+      handler.postAtTime(this, Math.max(SystemClock.uptimeMillis(), lastRun + window));
+    }
+  }
+
+  void coalesce(Runnable action) {
+    this.action = action;
+    if (!pending) {
+      pending = true;
+      handler.post(this);
+    }
+  }
+
+  void cancel() {
+    pending = false;
+    action = null;
+    handler.removeCallbacks(this);
+  }
+
+  @Override public void run() {
+    Runnable toRun = null;
+    synchronized (tasks) {
+      if (pending) {
+        toRun = action;
+        action = null;
+        pending = false;
+        lastRun = SystemClock.uptimeMillis();
+      }
+      if (toRun != null && window > 0L) {
+        // throttled key is kept until its window ends, so next trigger still waits for it
+        handler.postAtTime(this, lastRun + window);
+      } else if (!pending && tasks.get(key) == this) {
+        tasks.remove(key);
+      }
+    }
+    if (toRun != null) {
+      toRun.run();
+    }
+  }
+}
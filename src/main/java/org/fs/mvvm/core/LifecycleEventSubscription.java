@@ -0,0 +1,54 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import android.arch.lifecycle.Lifecycle;
+import android.arch.lifecycle.LifecycleObserver;
+import android.arch.lifecycle.OnLifecycleEvent;
+import android.os.Looper;
+import io.reactivex.functions.Consumer;
+
+/**
+ * Subscription that is bound to {@link Lifecycle} of its owner and disposes itself when owner
+ * is destroyed, so a forgotten remove can not keep a screen reachable through the bus.
+ *
+ * @param <E> type of event
+ */
+class LifecycleEventSubscription<E extends EventType> extends EventSubscription<E> implements LifecycleObserver {
+
+  private final Lifecycle lifecycle;
+
+  LifecycleEventSubscription(BusManager bus, Class<E> type, Consumer<? super E> consumer, Lifecycle lifecycle) {
+    super(bus, type, consumer);
+    this.lifecycle = lifecycle;
+  }
+
+  @OnLifecycleEvent(Lifecycle.Event.ON_DESTROY) void onDestroy() {
+    dispose();
+  }
+
+  @Override public void dispose() {
+    if (!isDisposed()) {
+      super.dispose();
+      // lifecycle is not thread safe, observers are only touched on main thread
+      if (Looper.myLooper() == Looper.getMainLooper()) {
+        lifecycle.removeObserver(this);
+      } else {
+        ThreadManager.runOnUiThread(() -> lifecycle.removeObserver(this));
+      }
+    }
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+public enum OverflowPolicy {
+
+  /**
+   * When buffer is full oldest pending event is dropped to make room for new one
+   */
+  DROP_OLDEST,
+
+  /**
+   * Only most recent pending event is kept, capacity of buffer is ignored
+   */
+  KEEP_LATEST,
+
+  /**
+   * When buffer is full subscription is terminated and its pending events are dropped,
+   * MissingBackpressureException is kept on {@link BoundedSubscription#error()} instead of being
+   * thrown
+   */
+  ERROR
+}
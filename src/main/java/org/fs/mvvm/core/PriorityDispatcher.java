@@ -0,0 +1,115 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers events on main thread from one lane for each {@link Priority}. Each drain cycle
+ * sends events while its time budget lasts, {@link Priority#HIGH} lane first and lower lanes
+ * only when high lane is empty, what is left is carried to next cycle. An event in high lane
+ * posts a drain in front of message queue, unless high lane itself outlasted last cycle; then
+ * cycles are posted behind queued messages so a flood of high events does not block them.
+ */
+final class PriorityDispatcher implements Runnable {
+
+  private final BusManager bus;
+  private final List<Queue<EventType>> lanes;
+  private final AtomicBoolean scheduled = new AtomicBoolean(false);
+  private final AtomicBoolean urgent = new AtomicBoolean(false);
+  private final Runnable urgentDrain = () -> {
+    urgent.set(false);
+    drain();
+  };
+
+  private volatile long budget;
+  // high lane was not empty when budget of last cycle ran out
+  private volatile boolean saturated = false;
+
+  PriorityDispatcher(BusManager bus, long budget) {
+    this.bus = bus;
+    this.budget = budget;
+    final Priority[] priorities = Priority.values();
+    this.lanes = new ArrayList<>(priorities.length);
+    for (int i = 0; i < priorities.length; i++) {
+      lanes.add(new ConcurrentLinkedQueue<>());
+    }
+  }
+
+  void setBudget(long budget) {
+    this.budget = budget;
+  }
+
+  void offer(EventType event, Priority priority) {
+    lanes.get(priority.ordinal()).offer(event);
+    if (priority == Priority.HIGH && !saturated) {
+      if (urgent.compareAndSet(false, true)) {
+        ThreadManager.runOnUiThread(urgentDrain, Priority.HIGH);
+      }
+    } else {
+      schedule();
+    }
+  }
+
+  @Override public void run() {
+    scheduled.set(false);
+    drain();
+  }
+
+  private void drain() {
+    final long deadline = System.nanoTime() + budget;
+    for (;;) {
+      EventType event = null;
+      for (int i = 0, z = lanes.size(); i < z && event == null; i++) {
+        event = lanes.get(i).poll();
+      }
+      if (event == null) {
+        break;
+      }
+      try {
+        bus.post(event);
+      } finally {
+        AbstractRecyclableEvent.releaseIfRecyclable(event);
+      }
+      if (System.nanoTime() >= deadline) {
+        break;
+      }
+    }
+    saturated = !lanes.get(0).isEmpty();
+    if (!isEmpty()) {
+      schedule();
+    }
+  }
+
+  private void schedule() {
+    if (scheduled.compareAndSet(false, true)) {
+      ThreadManager.runOnUiThread(this);
+    }
+  }
+
+  private boolean isEmpty() {
+    for (Queue<EventType> lane : lanes) {
+      if (!lane.isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
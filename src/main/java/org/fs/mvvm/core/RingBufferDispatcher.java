@@ -0,0 +1,125 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import io.reactivex.Scheduler;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Multi-producer single-consumer ring buffer in front of {@link BusManager}, slots are
+ * allocated once and claimed by sequence, so producers never take a lock and never wait;
+ * when buffer is full offer fails instead. Consumer drains published slots in batches on
+ * worker of its scheduler and posts them to bus from that single thread.
+ */
+final class RingBufferDispatcher implements Runnable {
+
+  private final BusManager bus;
+  private final Scheduler.Worker worker;
+  private final int capacity;
+  private final int mask;
+  private final int batchSize;
+
+  private final EventType[] slots;
+  // sequence last published into each slot, consumer reads a slot only after it sees its sequence
+  private final AtomicLongArray published;
+  private final AtomicLong claimed = new AtomicLong(-1L);
+  private final AtomicLong rejected = new AtomicLong(0L);
+  private final AtomicInteger wip = new AtomicInteger(0);
+
+  private volatile long consumed = -1L;
+
+  RingBufferDispatcher(BusManager bus, Scheduler scheduler, int capacity, int batchSize) {
+    this.bus = bus;
+    this.worker = scheduler.createWorker();
+    this.capacity = roundToPowerOfTwo(capacity);
+    this.mask = this.capacity - 1;
+    this.batchSize = batchSize;
+    this.slots = new EventType[this.capacity];
+    this.published = new AtomicLongArray(this.capacity);
+    for (int i = 0; i < this.capacity; i++) {
+      published.set(i, -1L);
+    }
+  }
+
+  boolean offer(EventType event) {
+    long current;
+    long next;
+    do {
+      current = claimed.get();
+      next = current + 1L;
+      if (next - capacity > consumed) {
+        rejected.incrementAndGet();
+        AbstractRecyclableEvent.releaseIfRecyclable(event);
+        return false;
+      }
+    } while (!claimed.compareAndSet(current, next));
+    final int index = (int) next & mask;
+    slots[index] = event;
+    published.lazySet(index, next);
+    if (wip.getAndIncrement() == 0) {
+      worker.schedule(this);
+    }
+    return true;
+  }
+
+  long rejected() {
+    return rejected.get();
+  }
+
+  int size() {
+    return (int) (claimed.get() - consumed);
+  }
+
+  @Override public void run() {
+    int missed = 1;
+    for (;;) {
+      long sequence = consumed;
+      int count = 0;
+      while (count < batchSize) {
+        final long next = sequence + 1L;
+        final int index = (int) next & mask;
+        if (published.get(index) != next) {
+          break;
+        }
+        final EventType event = slots[index];
+        slots[index] = null;
+        sequence = next;
+        consumed = sequence;
+        try {
+          bus.post(event);
+        } finally {
+          AbstractRecyclableEvent.releaseIfRecyclable(event);
+        }
+        count++;
+      }
+      if (count == batchSize) {
+        // yield the thread between batches, wip stays non zero so producers do not reschedule
+        worker.schedule(this);
+        return;
+      }
+      missed = wip.addAndGet(-missed);
+      if (missed == 0) {
+        break;
+      }
+    }
+  }
+
+  private static int roundToPowerOfTwo(int value) {
+    return 1 << (32 - Integer.numberOfLeadingZeros(value - 1));
+  }
+}
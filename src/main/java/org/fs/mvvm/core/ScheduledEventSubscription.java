@@ -0,0 +1,97 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Consumer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Subscription that receives events on its scheduler, events sent while a drain is pending are
+ * queued and delivered by that same drain, so there is one hand-off to target thread for each
+ * drain instead of one for each event. Each drain is scheduled on its own, so an idle
+ * subscription does not hold a worker or the thread behind it.
+ *
+ * @param <E> type of event
+ */
+class ScheduledEventSubscription<E extends EventType> extends EventSubscription<E> implements Runnable {
+
+  private final Scheduler scheduler;
+  private final Queue<EventType> queue = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger wip = new AtomicInteger(0);
+  private final AtomicInteger pending = new AtomicInteger(0);
+
+  ScheduledEventSubscription(BusManager bus, Class<E> type, Consumer<? super E> consumer, Scheduler scheduler) {
+    super(bus, type, consumer);
+    this.scheduler = scheduler;
+  }
+
+  @Override void deliver(EventType event) {
+    if (!isDisposed()) {
+      AbstractRecyclableEvent.retainIfRecyclable(event);
+      pending.incrementAndGet();
+      queue.offer(event);
+      if (wip.getAndIncrement() == 0) {
+        // wip keeps drains from overlapping, so they do not need to share a worker
+        scheduler.scheduleDirect(this);
+      }
+    }
+  }
+
+  @Override public void run() {
+    int missed = 1;
+    for (;;) {
+      EventType event;
+      while ((event = queue.poll()) != null) {
+        pending.decrementAndGet();
+        if (isDisposed()) {
+          AbstractRecyclableEvent.releaseIfRecyclable(event);
+          clear();
+          return;
+        }
+        try {
+          consume(event);
+        } finally {
+          AbstractRecyclableEvent.releaseIfRecyclable(event);
+        }
+      }
+      missed = wip.addAndGet(-missed);
+      if (missed == 0) {
+        break;
+      }
+    }
+  }
+
+  @Override int pending() {
+    return pending.get();
+  }
+
+  @Override public void dispose() {
+    // a drain that is already scheduled sees it is disposed and returns
+    super.dispose();
+    clear();
+  }
+
+  private void clear() {
+    EventType event;
+    while ((event = queue.poll()) != null) {
+      AbstractRecyclableEvent.releaseIfRecyclable(event);
+    }
+    pending.set(0);
+  }
+}
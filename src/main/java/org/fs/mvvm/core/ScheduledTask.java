@@ -0,0 +1,59 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import android.os.Handler;
+import io.reactivex.disposables.Disposable;
+
+/**
+ * Handle of an action posted to ui thread, disposing it removes action if it did not run yet.
+ * It is also disposed once action has run.
+ */
+final class ScheduledTask implements Runnable, Disposable {
+
+  private final Handler handler;
+  private final Runnable action;
+  private final Object token;
+
+  private volatile boolean disposed = false;
+
+  ScheduledTask(Handler handler, Runnable action, Object token) {
+    this.handler = handler;
+    this.action = action;
+    this.token = token;
+  }
+
+  @Override public void run() {
+    if (!disposed) {
+      try {
+        action.run();
+      } finally {
+        disposed = true;
+      }
+    }
+  }
+
+  @Override public void dispose() {
+    if (!disposed) {
+      disposed = true;
+      handler.removeCallbacks(this, token);
+    }
+  }
+
+  @Override public boolean isDisposed() {
+    return disposed;
+  }
+}
@@ -0,0 +1,256 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.fs.mvvm.utils.Preconditions;
+
+/**
+ * Watches main thread for stalls, it pings main looper through {@link ThreadManager} and when
+ * a ping is not answered within threshold it samples stack of main thread at sample interval
+ * until ping is answered. Each stall is grouped by its most frequent top frames and stalls of
+ * same signature are aggregated, so it costs one message per interval while main thread is
+ * healthy and can stay on in release builds.
+ */
+public final class StallWatchdog implements Runnable {
+
+  private final static long DEFAULT_INTERVAL = 500L;
+  private final static long DEFAULT_THRESHOLD = 200L;
+  private final static long DEFAULT_SAMPLE_INTERVAL = 50L;
+  private final static int DEFAULT_DEPTH = 5;
+
+  private final long interval;
+  private final long threshold;
+  private final long sampleInterval;
+  private final int depth;
+
+  private final Map<String, Integer> samples = new HashMap<>();
+  private final Map<String, StallStats> stalls = new HashMap<>();
+  private final Runnable ping = this::onPing;
+
+  private volatile long answered = 0L;
+  private volatile long answeredAt = 0L;
+  private volatile StallListener listener;
+
+  private HandlerThread thread;
+  private Handler handler;
+  private long sent = 0L;
+  private long sentAt = 0L;
+
+  public static StallWatchdog create() {
+    return new StallWatchdog(DEFAULT_INTERVAL, DEFAULT_THRESHOLD, DEFAULT_SAMPLE_INTERVAL, DEFAULT_DEPTH);
+  }
+
+  /**
+   * Creates watchdog with custom configuration
+   *
+   * @param interval time between pings in milliseconds
+   * @param threshold time in milliseconds after which an unanswered ping is a stall
+   * @param sampleInterval time between stack samples during a stall in milliseconds
+   * @param depth count of top frames that make signature of a stall
+   * @return watchdog
+   */
+  public static StallWatchdog create(long interval, long threshold, long sampleInterval, int depth) {
+    return new StallWatchdog(interval, threshold, sampleInterval, depth);
+  }
+
+  private StallWatchdog(long interval, long threshold, long sampleInterval, int depth) {
+    Preconditions.checkConditionMeet(interval > 0L, "interval must be positive");
+    Preconditions.checkConditionMeet(threshold > 0L, "threshold must be positive");
+    Preconditions.checkConditionMeet(sampleInterval > 0L, "sampleInterval must be positive");
+    Preconditions.checkConditionMeet(depth > 0, "depth must be positive");
+    this.interval = interval;
+    this.threshold = threshold;
+    this.sampleInterval = sampleInterval;
+    this.depth = depth;
+  }
+
+  /**
+   * Sets listener that is called on watchdog thread when a stall ends
+   *
+   * @param listener listener or null to remove it
+   */
+  public void setListener(StallListener listener) {
+    this.listener = listener;
+  }
+
+  public synchronized void start() {
+    if (thread == null) {
+      thread = new HandlerThread("mvvm-stall-watchdog", Process.THREAD_PRIORITY_BACKGROUND);
+      thread.start();
+      handler = new Handler(thread.getLooper());
+      handler.post(this);
+    }
+  }
+
+  public synchronized void stop() {
+    if (thread != null) {
+      handler.removeCallbacksAndMessages(null);
+      thread.quit();
+      thread = null;
+      handler = null;
+    }
+  }
+
+  /**
+   * Aggregated stalls so far, longest total duration first
+   *
+   * @return list of stalls
+   */
+  public synchronized List<StallStats> snapshot() {
+    final List<StallStats> list = new ArrayList<>(stalls.size());
+    for (StallStats stats : stalls.values()) {
+      list.add(new StallStats(stats.signature, stats.count, stats.totalDuration, stats.maxDuration));
+    }
+    Collections.sort(list, (lhs, rhs) -> lhs.totalDuration > rhs.totalDuration ? -1 : (lhs.totalDuration == rhs.totalDuration ? 0 : 1));
+    return list;
+  }
+
+  public synchronized void reset() {
+    stalls.clear();
+  }
+
+  private void onPing() {
+    answeredAt = SystemClock.uptimeMillis();
+    answered++;
+  }
+
+  @Override public void run() {
+    final long now = SystemClock.uptimeMillis();
+    final long delay;
+    if (sent != answered) {
+      final long waited = now - sentAt;
+      if (waited >= threshold) {
+        sample();
+        delay = sampleInterval;
+      } else {
+        delay = threshold - waited;
+      }
+    } else {
+      if (!samples.isEmpty()) {
+        onStallEnded(answeredAt - sentAt);
+      }
+      final long elapsed = now - sentAt;
+      if (elapsed >= interval) {
+        sent++;
+        sentAt = now;
+        ThreadManager.runOnUiThread(ping);
+        delay = threshold;
+      } else {
+        delay = interval - elapsed;
+      }
+    }
+    synchronized (this) {
+      if (handler != null) {
+        handler.postDelayed(this, delay);
+      }
+    }
+  }
+
+  private void sample() {
+    final StackTraceElement[] stack = Looper.getMainLooper().getThread().getStackTrace();
+    final StringBuilder str = new StringBuilder();
+    for (int i = 0, z = Math.min(depth, stack.length); i < z; i++) {
+      if (i > 0) {
+        str.append('\n');
+      }
+      str.append(stack[i].toString());
+    }
+    final String signature = str.toString();
+    final Integer count = samples.get(signature);
+    samples.put(signature, count == null ? 1 : count + 1);
+  }
+
+  private void onStallEnded(long duration) {
+    String signature = null;
+    int max = 0;
+    for (Map.Entry<String, Integer> entry : samples.entrySet()) {
+      if (entry.getValue() > max) {
+        max = entry.getValue();
+        signature = entry.getKey();
+      }
+    }
+    samples.clear();
+    synchronized (this) {
+      final StallStats stats = stalls.get(signature);
+      if (stats == null) {
+        stalls.put(signature, new StallStats(signature, 1, duration, duration));
+      } else {
+        stats.count++;
+        stats.totalDuration += duration;
+        stats.maxDuration = Math.max(stats.maxDuration, duration);
+      }
+    }
+    final StallListener callback = listener;
+    if (callback != null) {
+      callback.onStall(signature, duration);
+    }
+  }
+
+  public interface StallListener {
+
+    /**
+     * Called when main thread recovers from a stall
+     *
+     * @param signature top frames of main thread that were sampled most during stall
+     * @param duration duration of stall in milliseconds
+     */
+    void onStall(String signature, long duration);
+  }
+
+  public static final class StallStats {
+
+    private final String signature;
+    private int count;
+    private long totalDuration;
+    private long maxDuration;
+
+    StallStats(String signature, int count, long totalDuration, long maxDuration) {
+      this.signature = signature;
+      this.count = count;
+      this.totalDuration = totalDuration;
+      this.maxDuration = maxDuration;
+    }
+
+    public String getSignature() {
+      return signature;
+    }
+
+    public int getCount() {
+      return count;
+    }
+
+    /**
+     * Durations in milliseconds
+     */
+    public long getTotalDuration() {
+      return totalDuration;
+    }
+
+    public long getMaxDuration() {
+      return maxDuration;
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import android.os.SystemClock;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps last events sent as sticky for each event class, bounded by count per class and
+ * by age of event, so late subscribers can be replayed what they missed.
+ */
+final class StickyCache {
+
+  private final Map<Class<?>, ArrayDeque<Entry>> entries = new HashMap<>();
+
+  private int maxPerType;
+  private long maxAge;
+  private long sequence = 0L;
+
+  StickyCache(int maxPerType, long maxAge) {
+    configure(maxPerType, maxAge);
+  }
+
+  synchronized void configure(int maxPerType, long maxAge) {
+    this.maxPerType = maxPerType;
+    this.maxAge = maxAge;
+    for (ArrayDeque<Entry> queue : entries.values()) {
+      trim(queue);
+    }
+  }
+
+  synchronized long put(EventType event) {
+    ArrayDeque<Entry> queue = entries.get(event.getClass());
+    if (queue == null) {
+      queue = new ArrayDeque<>(maxPerType);
+      entries.put(event.getClass(), queue);
+    }
+    final long current = sequence++;
+    queue.addLast(new Entry(event, current, SystemClock.elapsedRealtime()));
+    trim(queue);
+    return current;
+  }
+
+  /**
+   * Entries of type, or subtypes of it, that are not expired in the order they were put
+   *
+   * @param type class of event
+   * @return list of entries
+   */
+  synchronized List<Entry> snapshot(Class<?> type) {
+    final long now = SystemClock.elapsedRealtime();
+    final List<Entry> found = new ArrayList<>();
+    final Iterator<Map.Entry<Class<?>, ArrayDeque<Entry>>> iterator = entries.entrySet().iterator();
+    while (iterator.hasNext()) {
+      final Map.Entry<Class<?>, ArrayDeque<Entry>> next = iterator.next();
+      final ArrayDeque<Entry> queue = next.getValue();
+      evictExpired(queue, now);
+      if (queue.isEmpty()) {
+        iterator.remove();
+      } else if (type.isAssignableFrom(next.getKey())) {
+        found.addAll(queue);
+      }
+    }
+    if (found.isEmpty()) {
+      return Collections.emptyList();
+    }
+    Collections.sort(found, (lhs, rhs) -> lhs.sequence < rhs.sequence ? -1 : (lhs.sequence == rhs.sequence ? 0 : 1));
+    return found;
+  }
+
+  synchronized void remove(Class<?> type) {
+    final Iterator<Class<?>> iterator = entries.keySet().iterator();
+    while (iterator.hasNext()) {
+      if (type.isAssignableFrom(iterator.next())) {
+        iterator.remove();
+      }
+    }
+  }
+
+  synchronized void clear() {
+    entries.clear();
+  }
+
+  private void trim(ArrayDeque<Entry> queue) {
+    while (queue.size() > maxPerType) {
+      queue.removeFirst();
+    }
+    evictExpired(queue, SystemClock.elapsedRealtime());
+  }
+
+  private void evictExpired(ArrayDeque<Entry> queue, long now) {
+    // entries are in insertion order so expired ones are always at head
+    while (!queue.isEmpty() && now - queue.peekFirst().timestamp > maxAge) {
+      queue.removeFirst();
+    }
+  }
+
+  static final class Entry {
+
+    final EventType event;
+    final long sequence;
+    final long timestamp;
+
+    Entry(EventType event, long sequence, long timestamp) {
+      this.event = event;
+      this.sequence = sequence;
+      this.timestamp = timestamp;
+    }
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import io.reactivex.functions.Consumer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Subscription registered with replay of sticky events, sticky events reach it both by replay
+ * and live outside of any lock, so it delivers each sticky sequence once and never one older
+ * than it already delivered.
+ *
+ * @param <E> type of event
+ */
+final class StickyEventSubscription<E extends EventType> extends EventSubscription<E> {
+
+  private final AtomicLong lastSequence = new AtomicLong(-1L);
+
+  StickyEventSubscription(BusManager bus, Class<E> type, Consumer<? super E> consumer) {
+    super(bus, type, consumer);
+  }
+
+  @Override void deliver(EventType event, long sequence) {
+    if (sequence >= 0L) {
+      long last;
+      do {
+        last = lastSequence.get();
+        if (sequence <= last) {
+          return;
+        }
+      } while (!lastSequence.compareAndSet(last, sequence));
+    }
+    deliver(event);
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import android.arch.lifecycle.Lifecycle;
+import android.arch.lifecycle.LifecycleObserver;
+import android.arch.lifecycle.OnLifecycleEvent;
+import android.os.Handler;
+import android.os.SystemClock;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+import org.fs.mvvm.utils.Preconditions;
+
+/**
+ * Group of actions posted to ui thread by one owner, actions are posted with group as their
+ * token so disposing group removes only what this owner posted, unlike
+ * {@link ThreadManager#clearAll()}. Group that is created for a lifecycle is disposed when
+ * lifecycle is destroyed.
+ */
+public final class TaskGroup implements Disposable, LifecycleObserver {
+
+  private final Handler handler;
+  private volatile boolean disposed = false;
+
+  TaskGroup(Handler handler) {
+    this.handler = handler;
+  }
+
+  public Disposable runOnUiThread(Runnable action) {
+    Preconditions.checkNotNull(action, "action is null");
+    return post(action, 0L);
+  }
+
+  public Disposable runOnUiThreadDelayed(Runnable action, long delay) {
+    Preconditions.checkNotNull(action, "action is null");
+    Preconditions.checkConditionMeet(delay > 0L, "delay must be positive");
+    return post(action, delay);
+  }
+
+  private Disposable post(Runnable action, long delay) {
+    if (disposed) {
+      return Disposables.disposed();
+    }
+    final ScheduledTask task = new ScheduledTask(handler, action, this);
+    handler.postAtTime(task, this, SystemClock.uptimeMillis() + delay);
+    // group might be disposed while posting, make sure task does not outlive it
+    if (disposed) {
+      task.dispose();
+    }
+    return task;
+  }
+
+  @OnLifecycleEvent(Lifecycle.Event.ON_DESTROY) void onDestroy() {
+    dispose();
+  }
+
+  @Override public void dispose() {
+    if (!disposed) {
+      disposed = true;
+      handler.removeCallbacksAndMessages(this);
+    }
+  }
+
+  @Override public boolean isDisposed() {
+    return disposed;
+  }
+}
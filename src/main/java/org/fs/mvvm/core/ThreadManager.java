@@ -15,8 +15,13 @@
  */
 package org.fs.mvvm.core;
 
+import android.arch.lifecycle.Lifecycle;
+import android.arch.lifecycle.LifecycleOwner;
 import android.os.Handler;
 import android.os.Looper;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+import java.util.HashMap;
 import org.fs.mvvm.utils.Objects;
 import org.fs.mvvm.utils.Preconditions;
 
@@ -25,30 +30,204 @@ public final class ThreadManager {
   private final static Handler uiThread = new Handler(Looper.getMainLooper());
 
   private final static long DEFAULT_DELAY = 300L;
+  private final static long DEFAULT_FRAME_BUDGET = 4L * 1000000L;
+  private final static long DEFAULT_IDLE_BUDGET = 2L * 1000000L;
+
+  private final static FrameDispatcher frameDispatcher = new FrameDispatcher(DEFAULT_FRAME_BUDGET);
+  private final static IdleDispatcher idleDispatcher = new IdleDispatcher(uiThread, DEFAULT_IDLE_BUDGET);
+  // keys are matched by equals, tasks remove themselves once they have nothing left to wait for
+  final static HashMap<Object, KeyedTask> keyedTasks = new HashMap<>();
 
   private ThreadManager() {
     throw new IllegalArgumentException("you can not have instance of this object.");
   }
 
-  public static void runOnUiThread(Runnable action) {
+  public static Disposable runOnUiThread(Runnable action) {
     Preconditions.checkNotNull(action, "action is null");
     if (!Objects.isNullOrEmpty(uiThread)) {
-      uiThread.post(action);
+      final ScheduledTask task = new ScheduledTask(uiThread, action, null);
+      uiThread.post(task);
+      return task;
     }
+    return Disposables.disposed();
   }
 
-  public static void runOnUiThreadDelayed(Runnable action) {
-    runOnUiThreadDelayed(action, DEFAULT_DELAY);
+  /**
+   * Runs action on ui thread by priority; {@link Priority#HIGH} goes in front of message queue,
+   * {@link Priority#NORMAL} is same as {@link #runOnUiThread(Runnable)} and {@link Priority#LOW}
+   * runs only when message queue is idle so it does not take time from frames that draw
+   *
+   * @param action action to run
+   * @param priority priority of action
+   * @return disposable to remove action if it did not run yet
+   */
+  public static Disposable runOnUiThread(Runnable action, Priority priority) {
+    Preconditions.checkNotNull(action, "action is null");
+    Preconditions.checkNotNull(priority, "priority is null");
+    if (Objects.isNullOrEmpty(uiThread)) {
+      return Disposables.disposed();
+    }
+    final ScheduledTask task = new ScheduledTask(uiThread, action, null);
+    switch (priority) {
+      case HIGH:
+        uiThread.postAtFrontOfQueue(task);
+        break;
+      case LOW:
+        idleDispatcher.offer(task);
+        break;
+      default:
+        uiThread.post(task);
+        break;
+    }
+    return task;
   }
 
-  public static void runOnUiThreadDelayed(Runnable action, long delay) {
+  public static Disposable runOnUiThreadDelayed(Runnable action) {
+    return runOnUiThreadDelayed(action, DEFAULT_DELAY);
+  }
+
+  public static Disposable runOnUiThreadDelayed(Runnable action, long delay) {
     Preconditions.checkNotNull(action, "action is null");
     Preconditions.checkConditionMeet(delay > 0L, "delay must be positive");
     if (!Objects.isNullOrEmpty(uiThread)) {
-      uiThread.postDelayed(action, delay);
+      final ScheduledTask task = new ScheduledTask(uiThread, action, null);
+      uiThread.postDelayed(task, delay);
+      return task;
+    }
+    return Disposables.disposed();
+  }
+
+  /**
+   * Runs action on ui thread once delay passes without another trigger of same key, each
+   * trigger replaces action and restarts delay
+   *
+   * @param key key of action
+   * @param action action to run
+   * @param delay delay in milliseconds
+   */
+  public static void debounce(Object key, Runnable action, long delay) {
+    Preconditions.checkNotNull(key, "key is null");
+    Preconditions.checkNotNull(action, "action is null");
+    Preconditions.checkConditionMeet(delay > 0L, "delay must be positive");
+    synchronized (keyedTasks) {
+      keyedTask(key).debounce(action, delay);
     }
   }
 
+  /**
+   * Runs action on ui thread at most once in every window for same key, triggers during a
+   * window replace action so latest one runs when window ends
+   *
+   * @param key key of action
+   * @param action action to run
+   * @param window window in milliseconds
+   */
+  public static void throttle(Object key, Runnable action, long window) {
+    Preconditions.checkNotNull(key, "key is null");
+    Preconditions.checkNotNull(action, "action is null");
+    Preconditions.checkConditionMeet(window > 0L, "window must be positive");
+    synchronized (keyedTasks) {
+      keyedTask(key).throttle(action, window);
+    }
+  }
+
+  /**
+   * Runs action on ui thread once for all triggers of same key until it runs, triggers
+   * replace action so latest one runs
+   *
+   * @param key key of action
+   * @param action action to run
+   */
+  public static void coalesce(Object key, Runnable action) {
+    Preconditions.checkNotNull(key, "key is null");
+    Preconditions.checkNotNull(action, "action is null");
+    synchronized (keyedTasks) {
+      keyedTask(key).coalesce(action);
+    }
+  }
+
+  /**
+   * Cancels pending debounced, throttled or coalesced action of key and forgets key
+   *
+   * @param key key of action
+   */
+  public static void cancel(Object key) {
+    Preconditions.checkNotNull(key, "key is null");
+    synchronized (keyedTasks) {
+      final KeyedTask task = keyedTasks.remove(key);
+      if (task != null) {
+        task.cancel();
+      }
+    }
+  }
+
+  // guarded by keyedTasks, trigger has to happen under same lock so task is not removed meanwhile
+  private static KeyedTask keyedTask(Object key) {
+    KeyedTask task = keyedTasks.get(key);
+    if (task == null) {
+      task = new KeyedTask(uiThread, keyedTasks, key);
+      keyedTasks.put(key, task);
+    }
+    return task;
+  }
+
+  /**
+   * Creates a group that actions of one owner are posted through, so they can be removed
+   * together without touching actions of other owners
+   *
+   * @return task group
+   */
+  public static TaskGroup newTaskGroup() {
+    return new TaskGroup(uiThread);
+  }
+
+  /**
+   * Creates a group that is disposed when owner is destroyed, it must be called on main thread
+   *
+   * @param owner owner of lifecycle, such as activity or fragment
+   * @return task group
+   */
+  public static TaskGroup newTaskGroup(LifecycleOwner owner) {
+    Preconditions.checkNotNull(owner, "owner is null");
+    final TaskGroup group = new TaskGroup(uiThread);
+    final Lifecycle lifecycle = owner.getLifecycle();
+    if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+      group.dispose();
+    } else {
+      lifecycle.addObserver(group);
+    }
+    return group;
+  }
+
+  /**
+   * Runs action on ui thread in next display frame together with other actions queued for it,
+   * so a burst of actions costs one looper message per frame instead of one per action.
+   * Actions that do not fit in frame budget are carried to next frame.
+   *
+   * @param action action to run
+   */
+  public static void runOnUiThreadBatched(Runnable action) {
+    Preconditions.checkNotNull(action, "action is null");
+    frameDispatcher.offer(action);
+  }
+
+  /**
+   * Sets time in milliseconds that batched actions can take in each frame, default is four
+   * milliseconds
+   *
+   * @param budget budget in milliseconds
+   */
+  public static void setFrameBudget(long budget) {
+    Preconditions.checkConditionMeet(budget > 0L, "budget must be positive");
+    frameDispatcher.setBudget(budget * 1000000L);
+  }
+
+  /**
+   * Removes every pending action on ui thread, including those of other screens
+   *
+   * @deprecated use {@link #newTaskGroup()} and dispose group of owner instead
+   */
+  @Deprecated
   public static void clearAll() {
     if (!Objects.isNullOrEmpty(uiThread)) {
       uiThread.removeCallbacksAndMessages(null);
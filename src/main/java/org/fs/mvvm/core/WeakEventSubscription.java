@@ -0,0 +1,67 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import io.reactivex.functions.BiConsumer;
+import io.reactivex.functions.Consumer;
+import java.lang.ref.WeakReference;
+
+/**
+ * Subscription that only weakly reaches its target, callback receives target with each event
+ * and should not capture it. When target is collected subscription is pruned on next dispatch.
+ *
+ * @param <T> type of target
+ * @param <E> type of event
+ */
+class WeakEventSubscription<T, E extends EventType> extends EventSubscription<E> {
+
+  private final WeakConsumer<T, E> weakConsumer;
+
+  WeakEventSubscription(BusManager bus, Class<E> type, WeakConsumer<T, E> weakConsumer) {
+    super(bus, type, weakConsumer);
+    this.weakConsumer = weakConsumer;
+  }
+
+  @Override void deliver(EventType event) {
+    if (weakConsumer.reference.get() == null) {
+      dispose();
+    } else {
+      consume(event);
+    }
+  }
+
+  @Override String name() {
+    return weakConsumer.callback.getClass().getName();
+  }
+
+  static final class WeakConsumer<T, E> implements Consumer<E> {
+
+    final WeakReference<T> reference;
+    final BiConsumer<? super T, ? super E> callback;
+
+    WeakConsumer(T target, BiConsumer<? super T, ? super E> callback) {
+      this.reference = new WeakReference<>(target);
+      this.callback = callback;
+    }
+
+    @Override public void accept(E event) throws Exception {
+      final T target = reference.get();
+      if (target != null) {
+        callback.accept(target, event);
+      }
+    }
+  }
+}
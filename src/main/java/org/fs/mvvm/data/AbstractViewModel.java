@@ -15,24 +15,108 @@
  */
 package org.fs.mvvm.data;
 
+import android.arch.lifecycle.Lifecycle;
 import android.content.Intent;
 import android.databinding.BaseObservable;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.MenuItem;
+import io.reactivex.Observable;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import org.fs.mvvm.utils.Preconditions;
 
 public abstract class AbstractViewModel<V extends ViewType> extends BaseObservable {
 
   protected final V view;
 
+  private final Subject<Lifecycle.Event> lifecycle = PublishSubject.<Lifecycle.Event>create().toSerialized();
+  private final Map<Lifecycle.Event, CompositeDisposable> disposables = new EnumMap<>(Lifecycle.Event.class);
+  private boolean destroyed = false;
+
   public AbstractViewModel(V view) {
     Preconditions.checkNotNull(view, "view is null");
     this.view = view;
   }
 
+  /**
+   * Lifecycle events of view that view model is bound to, only events after subscription
+   * are emitted
+   *
+   * @return observable of lifecycle events
+   */
+  public final Observable<Lifecycle.Event> lifecycle() {
+    return lifecycle;
+  }
+
+  /**
+   * Called by view after each lifecycle callback of view model, it disposes what is bound to
+   * event before it is emitted; on destroy everything that is still kept is disposed, whatever
+   * event it was bound to, since none of them occurs again
+   *
+   * @param event lifecycle event
+   */
+  public final void dispatchLifecycleEvent(Lifecycle.Event event) {
+    final List<CompositeDisposable> containers = new ArrayList<>();
+    synchronized (disposables) {
+      if (event == Lifecycle.Event.ON_DESTROY) {
+        destroyed = true;
+        containers.addAll(disposables.values());
+        disposables.clear();
+      } else {
+        final CompositeDisposable container = disposables.remove(event);
+        if (container != null) {
+          containers.add(container);
+        }
+      }
+    }
+    for (CompositeDisposable container : containers) {
+      container.dispose();
+    }
+    lifecycle.onNext(event);
+  }
+
+  /**
+   * Keeps disposable until next lifecycle event, it is disposed when event occurs; after
+   * view model is destroyed disposable is disposed right away
+   *
+   * @param event lifecycle event to dispose on
+   * @param disposable disposable of stream
+   */
+  protected final void disposeOn(Lifecycle.Event event, Disposable disposable) {
+    Preconditions.checkNotNull(event, "event is null");
+    Preconditions.checkNotNull(disposable, "disposable is null");
+    synchronized (disposables) {
+      if (!destroyed) {
+        CompositeDisposable container = disposables.get(event);
+        if (container == null) {
+          container = new CompositeDisposable();
+          disposables.put(event, container);
+        }
+        container.add(disposable);
+        return;
+      }
+    }
+    disposable.dispose();
+  }
+
+  protected final void disposeOn(Lifecycle.Event event, UsecaseType usecase) {
+    Preconditions.checkNotNull(usecase, "usecase is null");
+    disposeOn(event, usecase.disposable());
+  }
+
+  protected final void disposeOnDestroy(Disposable disposable) {
+    disposeOn(Lifecycle.Event.ON_DESTROY, disposable);
+  }
+
   public void onResume(){}
   public void onPause(){}
   public void onStart(){}
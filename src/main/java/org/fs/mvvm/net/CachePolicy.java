@@ -0,0 +1,34 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.net;
+
+/**
+ * How {@link ResponseCache} answers a call of an endpoint annotated with {@link Cached}.
+ */
+public enum CachePolicy {
+
+  /**
+   * Response kept in memory is returned while it is younger than max age, otherwise call goes
+   * to network and its response is kept
+   */
+  CACHE_FIRST,
+
+  /**
+   * Call goes to network and its response is kept, response kept in memory is returned
+   * regardless of its age only if network fails with an io error
+   */
+  NETWORK_FIRST
+}
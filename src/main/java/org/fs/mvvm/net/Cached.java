@@ -0,0 +1,47 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.net;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a GET endpoint whose decoded responses are kept in {@link ResponseCache} of
+ * {@link RxJava2CallAdapterFactory}.
+ * <pre><code>
+ * interface MyService {
+ *   &#64;Cached(maxAge = 300)
+ *   &#64;GET("user/me")
+ *   Single&lt;User&gt; getUser()
+ * }
+ * </code></pre>
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cached {
+
+  CachePolicy value() default CachePolicy.CACHE_FIRST;
+
+  /**
+   * Max age of response kept in memory in seconds, zero sends every call to network where
+   * {@link okhttp3.Cache} can still revalidate it
+   */
+  long maxAge() default 60L;
+}
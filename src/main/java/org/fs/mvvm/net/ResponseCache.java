@@ -0,0 +1,145 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.net;
+
+import android.os.SystemClock;
+import io.reactivex.Observable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import okhttp3.Request;
+import org.fs.mvvm.utils.Preconditions;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Memory cache of decoded responses of {@link Cached} endpoints, it is least recently used
+ * ordered and bounded by count of entries. Only successful responses of GET calls are kept,
+ * keyed by url and headers of request.
+ * <p>
+ * Raw bytes on disk and revalidation with ETag and Last-Modified are left to
+ * {@link okhttp3.Cache} of {@link okhttp3.OkHttpClient}, so a response that is too old for
+ * memory goes to network as a conditional request and a 304 answer is read from disk:
+ * <pre><code>
+ * OkHttpClient client = new OkHttpClient.Builder()
+ *   .cache(new Cache(new File(context.getCacheDir(), "http"), 10L * 1024L * 1024L))
+ *   .build();
+ * </code></pre>
+ */
+public final class ResponseCache {
+
+  private final int maxEntries;
+  // access ordered, so eldest entry is least recently used one
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  public static ResponseCache create(int maxEntries) {
+    return new ResponseCache(maxEntries);
+  }
+
+  private ResponseCache(int maxEntries) {
+    Preconditions.checkConditionMeet(maxEntries > 0, "maxEntries must be positive");
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Removes responses of url regardless of headers they were requested with
+   *
+   * @param url url of endpoint
+   */
+  public synchronized void invalidate(String url) {
+    Preconditions.checkNotNull(url, "url is null");
+    final String prefix = url + "\n";
+    final Iterator<String> keys = entries.keySet().iterator();
+    while (keys.hasNext()) {
+      if (keys.next().startsWith(prefix)) {
+        keys.remove();
+      }
+    }
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  <R> Observable<Response<R>> apply(final Call<R> call, final Cached cached,
+      final Observable<Response<R>> network) {
+    final long maxAge = cached.maxAge() * 1000L;
+    final CachePolicy policy = cached.value();
+    return Observable.defer(() -> {
+      final Request request = call.request();
+      if (!"GET".equals(request.method())) {
+        return network;
+      }
+      final String key = keyOf(request);
+      final Observable<Response<R>> store = network.doOnNext(response -> {
+        if (response.isSuccessful()) {
+          put(key, response);
+        }
+      });
+      if (policy == CachePolicy.NETWORK_FIRST) {
+        return store.onErrorResumeNext(error -> {
+          final Response<R> response = get(key, Long.MAX_VALUE);
+          return response != null && error instanceof IOException
+              ? Observable.just(response)
+              : Observable.error(error);
+        });
+      }
+      final Response<R> response = get(key, maxAge);
+      return response != null ? Observable.just(response) : store;
+    });
+  }
+
+  @SuppressWarnings("unchecked")
+  private synchronized <R> Response<R> get(String key, long maxAge) {
+    final Entry entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (SystemClock.elapsedRealtime() - entry.storedAt >= maxAge) {
+      return null;
+    }
+    return (Response<R>) entry.response;
+  }
+
+  private synchronized void put(String key, Response<?> response) {
+    entries.put(key, new Entry(response, SystemClock.elapsedRealtime()));
+    if (entries.size() > maxEntries) {
+      final Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+      eldest.next();
+      eldest.remove();
+    }
+  }
+
+  private static String keyOf(Request request) {
+    return request.url() + "\n" + request.headers();
+  }
+
+  private static final class Entry {
+
+    final Response<?> response;
+    final long storedAt;
+
+    Entry(Response<?> response, long storedAt) {
+      this.response = response;
+      this.storedAt = storedAt;
+    }
+  }
+}
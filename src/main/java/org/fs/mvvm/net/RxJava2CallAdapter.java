@@ -19,6 +19,9 @@ import io.reactivex.BackpressureStrategy;
 import io.reactivex.Observable;
 import io.reactivex.Scheduler;
 import java.lang.reflect.Type;
+import okhttp3.Request;
+import org.fs.mvvm.utils.RxUtility;
+import org.fs.mvvm.utils.SingleFlight;
 import retrofit2.Call;
 import retrofit2.CallAdapter;
 import retrofit2.Response;
@@ -33,10 +36,13 @@ final class RxJava2CallAdapter<R> implements CallAdapter<R, Object> {
   private final boolean isSingle;
   private final boolean isMaybe;
   private final boolean isCompletable;
+  private final ResponseCache cache;
+  private final Cached cached;
+  private final SingleFlight flights;
 
   RxJava2CallAdapter(Type responseType, Scheduler scheduler, boolean isAsync, boolean isResult,
       boolean isBody, boolean isFlowable, boolean isSingle, boolean isMaybe,
-      boolean isCompletable) {
+      boolean isCompletable, ResponseCache cache, Cached cached, SingleFlight flights) {
     this.responseType = responseType;
     this.scheduler = scheduler;
     this.isAsync = isAsync;
@@ -46,6 +52,9 @@ final class RxJava2CallAdapter<R> implements CallAdapter<R, Object> {
     this.isSingle = isSingle;
     this.isMaybe = isMaybe;
     this.isCompletable = isCompletable;
+    this.cache = cache;
+    this.cached = cached;
+    this.flights = flights;
   }
 
   @Override public Type responseType() {
@@ -57,6 +66,13 @@ final class RxJava2CallAdapter<R> implements CallAdapter<R, Object> {
         ? new CallEnqueueObservable<>(call)
         : new CallExecuteObservable<>(call);
 
+    if (flights != null) {
+      responseObservable = coalesce(call, responseObservable);
+    }
+    if (cache != null) {
+      responseObservable = cache.apply(call, cached, responseObservable);
+    }
+
     Observable<?> observable;
     if (isResult) {
       observable = new ResultObservable<>(responseObservable);
@@ -84,4 +100,19 @@ final class RxJava2CallAdapter<R> implements CallAdapter<R, Object> {
     }
     return observable;
   }
+
+  private Observable<Response<R>> coalesce(Call<R> call, Observable<Response<R>> network) {
+    return Observable.defer(() -> {
+      Request request = call.request();
+      String method = request.method();
+      if (!"GET".equals(method) && !"HEAD".equals(method)) {
+        return network;
+      }
+      String key = method + " " + request.url() + "\n" + request.headers();
+      return network.compose(RxUtility.<Response<R>>singleFlightObservable(flights, key))
+          // joined after shared call emitted its response but before it completed, so it
+          // completed empty for this subscriber; make a call of its own
+          .switchIfEmpty(network);
+    });
+  }
 }
\ No newline at end of file
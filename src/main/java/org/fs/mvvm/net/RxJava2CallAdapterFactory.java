@@ -25,6 +25,8 @@ import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import okhttp3.ResponseBody;
+import org.fs.mvvm.utils.SingleFlight;
 import retrofit2.CallAdapter;
 import retrofit2.HttpException;
 import retrofit2.Response;
@@ -60,7 +62,7 @@ public final class RxJava2CallAdapterFactory extends CallAdapter.Factory {
    * by default.
    */
   public static RxJava2CallAdapterFactory create() {
-    return new RxJava2CallAdapterFactory(null, false);
+    return new RxJava2CallAdapterFactory(null, false, null, null);
   }
 
   /**
@@ -68,7 +70,7 @@ public final class RxJava2CallAdapterFactory extends CallAdapter.Factory {
    * {@link Observable#subscribeOn} has no effect on stream types created by this factory.
    */
   public static RxJava2CallAdapterFactory async() {
-    return new RxJava2CallAdapterFactory(null, true);
+    return new RxJava2CallAdapterFactory(null, true, null, null);
   }
 
   /**
@@ -77,15 +79,39 @@ public final class RxJava2CallAdapterFactory extends CallAdapter.Factory {
    */
   public static RxJava2CallAdapterFactory create(Scheduler scheduler) {
     if (scheduler == null) throw new NullPointerException("scheduler == null");
-    return new RxJava2CallAdapterFactory(scheduler, false);
+    return new RxJava2CallAdapterFactory(scheduler, false, null, null);
   }
 
   private final Scheduler scheduler;
   private final boolean isAsync;
+  private final ResponseCache cache;
+  private final SingleFlight flights;
 
-  private RxJava2CallAdapterFactory(Scheduler scheduler, boolean isAsync) {
+  private RxJava2CallAdapterFactory(Scheduler scheduler, boolean isAsync, ResponseCache cache,
+      SingleFlight flights) {
     this.scheduler = scheduler;
     this.isAsync = isAsync;
+    this.cache = cache;
+    this.flights = flights;
+  }
+
+  /**
+   * Returns an instance with same configuration which keeps responses of methods annotated
+   * with {@link Cached} in {@code cache}.
+   */
+  public RxJava2CallAdapterFactory withCache(ResponseCache cache) {
+    if (cache == null) throw new NullPointerException("cache == null");
+    return new RxJava2CallAdapterFactory(scheduler, isAsync, cache, flights);
+  }
+
+  /**
+   * Returns an instance with same configuration which shares one call among concurrent
+   * subscribers of GET and HEAD requests with same url and headers. Shared call is canceled
+   * when its last subscriber disposes. Raw {@link ResponseBody} and streamed {@link Flowable}
+   * bodies are never shared since they can only be read once.
+   */
+  public RxJava2CallAdapterFactory withCoalescing() {
+    return new RxJava2CallAdapterFactory(scheduler, isAsync, cache, SingleFlight.create());
   }
 
   @Override
@@ -96,7 +122,7 @@ public final class RxJava2CallAdapterFactory extends CallAdapter.Factory {
       // Completable is not parameterized (which is what the rest of this method deals with) so it
       // can only be created with a single configuration.
       return new RxJava2CallAdapter(Void.class, scheduler, isAsync, false, true, false, false,
-          false, true);
+          false, true, null, null, null);
     }
 
     boolean isFlowable = rawType == Flowable.class;
@@ -137,7 +163,21 @@ public final class RxJava2CallAdapterFactory extends CallAdapter.Factory {
       isBody = true;
     }
 
+    // raw and streamed bodies are read once, so they are neither kept nor shared
+    boolean isOneShot = getRawType(responseType) == ResponseBody.class
+        || getRawType(responseType) == Flowable.class;
+    Cached cached = cache != null && !isOneShot ? findCached(annotations) : null;
+    boolean isShared = flights != null && !isOneShot;
     return new RxJava2CallAdapter(responseType, scheduler, isAsync, isResult, isBody, isFlowable,
-        isSingle, isMaybe, false);
+        isSingle, isMaybe, false, cached != null ? cache : null, cached, isShared ? flights : null);
+  }
+
+  private static Cached findCached(Annotation[] annotations) {
+    for (Annotation annotation : annotations) {
+      if (annotation instanceof Cached) {
+        return (Cached) annotation;
+      }
+    }
+    return null;
   }
 }
\ No newline at end of file
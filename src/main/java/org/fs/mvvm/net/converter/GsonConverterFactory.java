@@ -18,8 +18,11 @@ package org.fs.mvvm.net.converter;
 import com.google.gson.Gson;
 import com.google.gson.TypeAdapter;
 import com.google.gson.reflect.TypeToken;
+import io.reactivex.Flowable;
 import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
 import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
 import org.fs.mvvm.utils.Preconditions;
@@ -43,7 +46,19 @@ public class GsonConverterFactory extends Converter.Factory {
     this.gson = gson;
   }
 
+  /**
+   * Body type {@code Flowable<T>} is streamed element by element from a json array, top level
+   * one or one at {@link JsonArrayPath}. Method should be annotated with {@link retrofit2.http.Streaming}
+   * so body is not buffered, and returns it wrapped such as {@code Single<Flowable<Item>>}.
+   */
   @Override public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+    if (type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() == Flowable.class) {
+      Type elementType = ((ParameterizedType) type).getActualTypeArguments()[0];
+      if (elementType instanceof WildcardType) {
+        elementType = ((WildcardType) elementType).getUpperBounds()[0];
+      }
+      return new GsonStreamingResponseBodyConverter<>(typeAdapterFromType(elementType), pathOf(annotations));
+    }
     TypeAdapter<?> typeAdapter = typeAdapterFromType(type);
     return new GsonResponseBodyConverter<>(typeAdapter);
   }
@@ -56,4 +71,15 @@ public class GsonConverterFactory extends Converter.Factory {
   private TypeAdapter<?> typeAdapterFromType(Type type) {
     return gson.getAdapter(TypeToken.get(type));
   }
+
+  private static String[] pathOf(Annotation[] annotations) {
+    for (Annotation annotation : annotations) {
+      if (annotation instanceof JsonArrayPath) {
+        final String path = ((JsonArrayPath) annotation).value();
+        Preconditions.checkConditionMeet(!path.isEmpty(), "JsonArrayPath is empty");
+        return path.split("\\.");
+      }
+    }
+    return new String[0];
+  }
 }
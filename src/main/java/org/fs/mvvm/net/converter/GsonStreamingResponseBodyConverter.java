@@ -0,0 +1,95 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.net.converter;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import io.reactivex.Flowable;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import okhttp3.ResponseBody;
+import org.fs.mvvm.utils.Preconditions;
+import org.fs.mvvm.utils.RxUtility;
+import retrofit2.Converter;
+
+/**
+ * Converts body to a flowable that reads elements of a json array one at a time as they are
+ * requested, so neither whole body nor whole list is kept in memory. Body stays open until
+ * flowable terminates or is disposed, flowable can be subscribed only once. Body is read on io
+ * scheduler of {@link RxUtility#schedulers()} whichever thread requests elements.
+ *
+ * @param <T> type of element
+ */
+class GsonStreamingResponseBodyConverter<T> implements Converter<ResponseBody, Flowable<T>> {
+
+  private final TypeAdapter<T> typeAdapter;
+  private final String[] path;
+
+  GsonStreamingResponseBodyConverter(final TypeAdapter<T> typeAdapter, final String[] path) {
+    this.typeAdapter = typeAdapter;
+    this.path = path;
+  }
+
+  @Override public Flowable<T> convert(final ResponseBody value) {
+    Preconditions.checkNotNull(value, "response error");
+    final AtomicBoolean subscribed = new AtomicBoolean(false);
+    return Flowable.<T, JsonReader>generate(() -> {
+      if (!subscribed.compareAndSet(false, true)) {
+        throw new IllegalStateException("streamed body can only be subscribed once");
+      }
+      final JsonReader reader = new JsonReader(value.charStream());
+      try {
+        enterArray(reader);
+      } catch (IOException | RuntimeException error) {
+        reader.close();
+        throw error;
+      }
+      return reader;
+    }, (reader, emitter) -> {
+      // each call of generator counts against request, so null elements are skipped here
+      while (reader.hasNext()) {
+        final T element = typeAdapter.read(reader);
+        if (element != null) {
+          emitter.onNext(element);
+          return;
+        }
+      }
+      reader.endArray();
+      emitter.onComplete();
+    }, JsonReader::close)
+      // reads block on socket, requests of a main thread subscriber must not run them there
+      .subscribeOn(RxUtility.schedulers().io(), true);
+  }
+
+  private void enterArray(JsonReader reader) throws IOException {
+    for (String name : path) {
+      reader.beginObject();
+      boolean found = false;
+      while (!found && reader.hasNext()) {
+        if (name.equals(reader.nextName())) {
+          found = true;
+        } else {
+          reader.skipValue();
+        }
+      }
+      if (!found) {
+        throw new JsonSyntaxException("body has no member " + name + " at " + reader.getPath());
+      }
+    }
+    reader.beginArray();
+  }
+}
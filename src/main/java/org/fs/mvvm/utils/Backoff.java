@@ -0,0 +1,99 @@
+/*
+ * MVVM Android Copyright (C) 2017 Fatih.
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.utils;
+
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
+import io.reactivex.functions.Predicate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.reactivestreams.Publisher;
+
+/**
+ * Exponential backoff with full jitter for retryWhen, delay of each attempt is a random value
+ * between zero and base delay doubled for each attempt, capped by max delay. Only errors that
+ * predicate accepts are retried.
+ */
+public final class Backoff {
+
+  private final static Random random = new Random();
+
+  private final int maxRetries;
+  private final long baseDelay;
+  private final long maxDelay;
+  private final Predicate<Throwable> predicate;
+
+  /**
+   * Creates backoff that retries errors accepted by {@link RxUtility#isTransient(Throwable)}
+   *
+   * @param maxRetries count of retries
+   * @param baseDelay delay of first retry
+   * @param maxDelay cap of delay
+   * @param unit unit of delays
+   * @return backoff
+   */
+  public static Backoff create(int maxRetries, long baseDelay, long maxDelay, TimeUnit unit) {
+    return create(maxRetries, baseDelay, maxDelay, unit, RxUtility::isTransient);
+  }
+
+  public static Backoff create(int maxRetries, long baseDelay, long maxDelay, TimeUnit unit,
+      Predicate<Throwable> predicate) {
+    return new Backoff(maxRetries, baseDelay, maxDelay, unit, predicate);
+  }
+
+  private Backoff(int maxRetries, long baseDelay, long maxDelay, TimeUnit unit, Predicate<Throwable> predicate) {
+    Preconditions.checkConditionMeet(maxRetries >= 0, "maxRetries can not be negative");
+    Preconditions.checkConditionMeet(baseDelay > 0L, "baseDelay must be positive");
+    Preconditions.checkConditionMeet(maxDelay >= baseDelay, "maxDelay can not be less than baseDelay");
+    Preconditions.checkNotNull(unit, "unit is null");
+    Preconditions.checkNotNull(predicate, "predicate is null");
+    this.maxRetries = maxRetries;
+    this.baseDelay = unit.toMillis(baseDelay);
+    this.maxDelay = unit.toMillis(maxDelay);
+    this.predicate = predicate;
+  }
+
+  Publisher<?> retries(Flowable<Throwable> errors) {
+    final AtomicInteger attempts = new AtomicInteger(0);
+    return errors.flatMap(error -> {
+      final int attempt = attempts.incrementAndGet();
+      if (attempt > maxRetries || !predicate.test(error)) {
+        return Flowable.error(error);
+      }
+      return Flowable.timer(delayOf(attempt), TimeUnit.MILLISECONDS);
+    });
+  }
+
+  Observable<?> retries(Observable<Throwable> errors) {
+    final AtomicInteger attempts = new AtomicInteger(0);
+    return errors.flatMap(error -> {
+      final int attempt = attempts.incrementAndGet();
+      if (attempt > maxRetries || !predicate.test(error)) {
+        return Observable.error(error);
+      }
+      return Observable.timer(delayOf(attempt), TimeUnit.MILLISECONDS);
+    });
+  }
+
+  long delayOf(int attempt) {
+    final int shift = Math.min(attempt - 1, 30);
+    final long ceiling = Math.min(maxDelay, baseDelay << shift);
+    // shifted value can overflow for large base delays, cap keeps it in range
+    final long bound = ceiling <= 0L ? maxDelay : ceiling;
+    return (long) (random.nextDouble() * (bound + 1));
+  }
+}
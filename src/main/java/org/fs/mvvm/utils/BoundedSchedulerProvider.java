@@ -0,0 +1,150 @@
+/*
+ * MVVM Android Copyright (C) 2017 Fatih.
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.utils;
+
+import android.os.Process;
+import io.reactivex.Scheduler;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.Schedulers;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scheduler provider backed by thread pools of fixed size, unlike {@link Schedulers#io()} it
+ * does not grow under load. Computation pool has one thread for each available processor,
+ * parsing pool half of them and io pool is bounded by a multiple of them.
+ *
+ * Io pool is bounded, so work on it should not block waiting for other io work. Schedulers
+ * go through {@link RxJavaPlugins} handlers, parsing one through computation handler, so tests
+ * that replace io or computation scheduler replace these too.
+ */
+public final class BoundedSchedulerProvider implements SchedulerProvider {
+
+  private final static int MIN_IO_THREADS = 4;
+  private final static int MAX_IO_THREADS = 16;
+
+  private final InstrumentedExecutor computationPool;
+  private final InstrumentedExecutor ioPool;
+  private final InstrumentedExecutor parsingPool;
+
+  private final Scheduler computation;
+  private final Scheduler io;
+  private final Scheduler parsing;
+
+  public static BoundedSchedulerProvider create() {
+    final int processors = Runtime.getRuntime().availableProcessors();
+    return create(processors, Math.min(MAX_IO_THREADS, Math.max(MIN_IO_THREADS, processors * 2)),
+        Math.max(1, processors / 2));
+  }
+
+  public static BoundedSchedulerProvider create(int computationThreads, int ioThreads, int parsingThreads) {
+    return new BoundedSchedulerProvider(computationThreads, ioThreads, parsingThreads);
+  }
+
+  private BoundedSchedulerProvider(int computationThreads, int ioThreads, int parsingThreads) {
+    Preconditions.checkConditionMeet(computationThreads > 0, "computationThreads must be positive");
+    Preconditions.checkConditionMeet(ioThreads > 0, "ioThreads must be positive");
+    Preconditions.checkConditionMeet(parsingThreads > 0, "parsingThreads must be positive");
+    computationPool = new InstrumentedExecutor("computation", computationThreads, Process.THREAD_PRIORITY_BACKGROUND);
+    ioPool = new InstrumentedExecutor("io", ioThreads, Process.THREAD_PRIORITY_BACKGROUND);
+    parsingPool = new InstrumentedExecutor("parsing", parsingThreads, Process.THREAD_PRIORITY_BACKGROUND);
+    computation = Schedulers.from(computationPool);
+    io = Schedulers.from(ioPool);
+    parsing = Schedulers.from(parsingPool);
+  }
+
+  @Override public Scheduler computation() {
+    return RxJavaPlugins.onComputationScheduler(computation);
+  }
+
+  @Override public Scheduler io() {
+    return RxJavaPlugins.onIoScheduler(io);
+  }
+
+  @Override public Scheduler parsing() {
+    return RxJavaPlugins.onComputationScheduler(parsing);
+  }
+
+  @Override public Scheduler main() {
+    return AndroidSchedulers.mainThread();
+  }
+
+  /**
+   * Queue depth, active threads and wait time of each pool
+   *
+   * @return stats of pools
+   */
+  public List<PoolStats> stats() {
+    final List<PoolStats> stats = new ArrayList<>(3);
+    stats.add(statsOf(computationPool));
+    stats.add(statsOf(ioPool));
+    stats.add(statsOf(parsingPool));
+    return stats;
+  }
+
+  private static PoolStats statsOf(InstrumentedExecutor pool) {
+    final LatencyHistogram waits = pool.waits();
+    return new PoolStats(pool.name(), pool.getQueue().size(), pool.getActiveCount(),
+        waits.percentile(50d), waits.percentile(99d), waits.max());
+  }
+
+  public static final class PoolStats {
+
+    private final String name;
+    private final int queueDepth;
+    private final int activeCount;
+    private final long waitP50;
+    private final long waitP99;
+    private final long waitMax;
+
+    PoolStats(String name, int queueDepth, int activeCount, long waitP50, long waitP99, long waitMax) {
+      this.name = name;
+      this.queueDepth = queueDepth;
+      this.activeCount = activeCount;
+      this.waitP50 = waitP50;
+      this.waitP99 = waitP99;
+      this.waitMax = waitMax;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public int getQueueDepth() {
+      return queueDepth;
+    }
+
+    public int getActiveCount() {
+      return activeCount;
+    }
+
+    /**
+     * Wait times in queue in microseconds
+     */
+    public long getWaitP50() {
+      return waitP50;
+    }
+
+    public long getWaitP99() {
+      return waitP99;
+    }
+
+    public long getWaitMax() {
+      return waitMax;
+    }
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * MVVM Android Copyright (C) 2017 Fatih.
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.utils;
+
+import android.os.SystemClock;
+import io.reactivex.functions.Predicate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker of an endpoint or use case. It opens after a count of consecutive failures
+ * and fails fast with {@link CircuitOpenException} while open; once open timeout passes it lets
+ * one probe through as half open, probe success closes it and probe failure opens it again.
+ * Only errors accepted by predicate count as failures, others mean backend answered.
+ */
+public final class CircuitBreaker {
+
+  private final static int DEFAULT_FAILURE_THRESHOLD = 5;
+  private final static long DEFAULT_OPEN_TIMEOUT = 30L;
+
+  private final static ConcurrentHashMap<Object, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+  // token of calls that are not the probe
+  private final static Object PASS = new Object();
+
+  public enum State {
+
+    CLOSED,
+
+    OPEN,
+
+    HALF_OPEN
+  }
+
+  private final Object key;
+  private final int failureThreshold;
+  private final long openTimeout;
+  private final Predicate<Throwable> predicate;
+
+  private State state = State.CLOSED;
+  private int failures = 0;
+  private long openedAt = 0L;
+  // token of probe in flight, only it can clear probe
+  private Object probe;
+
+  /**
+   * Breaker of key, it is created with five failures and thirty seconds open timeout if key
+   * does not have one yet
+   *
+   * @param key key of endpoint or use case
+   * @return breaker of key
+   */
+  public static CircuitBreaker forKey(Object key) {
+    return forKey(key, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_TIMEOUT, TimeUnit.SECONDS);
+  }
+
+  public static CircuitBreaker forKey(Object key, int failureThreshold, long openTimeout, TimeUnit unit) {
+    Preconditions.checkNotNull(key, "key is null");
+    CircuitBreaker breaker = breakers.get(key);
+    if (breaker == null) {
+      final CircuitBreaker newBreaker = new CircuitBreaker(key, failureThreshold, openTimeout, unit, RxUtility::isTransient);
+      breaker = breakers.putIfAbsent(key, newBreaker);
+      if (breaker == null) {
+        breaker = newBreaker;
+      }
+    }
+    return breaker;
+  }
+
+  private CircuitBreaker(Object key, int failureThreshold, long openTimeout, TimeUnit unit,
+      Predicate<Throwable> predicate) {
+    Preconditions.checkConditionMeet(failureThreshold > 0, "failureThreshold must be positive");
+    Preconditions.checkConditionMeet(openTimeout > 0L, "openTimeout must be positive");
+    Preconditions.checkNotNull(unit, "unit is null");
+    this.key = key;
+    this.failureThreshold = failureThreshold;
+    this.openTimeout = unit.toMillis(openTimeout);
+    this.predicate = predicate;
+  }
+
+  public synchronized State state() {
+    return state;
+  }
+
+  /**
+   * Lets a call through, returned token is passed back with its outcome
+   *
+   * @return token of call or null if circuit is open
+   */
+  synchronized Object tryAcquire() {
+    switch (state) {
+      case OPEN:
+        if (SystemClock.elapsedRealtime() - openedAt < openTimeout) {
+          return null;
+        }
+        state = State.HALF_OPEN;
+        probe = new Object();
+        return probe;
+      case HALF_OPEN:
+        if (probe != null) {
+          return null;
+        }
+        probe = new Object();
+        return probe;
+      default:
+        return PASS;
+    }
+  }
+
+  synchronized void onSuccess(Object token) {
+    if (token == probe) {
+      probe = null;
+    }
+    state = State.CLOSED;
+    failures = 0;
+  }
+
+  void onError(Object token, Throwable error) {
+    boolean failure;
+    try {
+      failure = predicate.test(error);
+    } catch (Exception ignored) {
+      failure = true;
+    }
+    if (failure) {
+      onFailure(token);
+    } else {
+      onSuccess(token);
+    }
+  }
+
+  synchronized void onCancel(Object token) {
+    // probe that is disposed says nothing, next call probes again; other calls do not touch it
+    if (token == probe) {
+      probe = null;
+    }
+  }
+
+  private synchronized void onFailure(Object token) {
+    if (token == probe) {
+      probe = null;
+    }
+    if (state == State.HALF_OPEN || ++failures >= failureThreshold) {
+      state = State.OPEN;
+      openedAt = SystemClock.elapsedRealtime();
+    }
+  }
+
+  CircuitOpenException openException() {
+    return new CircuitOpenException("circuit of " + key + " is open");
+  }
+
+  public static final class CircuitOpenException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    CircuitOpenException(String message) {
+      super(message);
+    }
+  }
+}
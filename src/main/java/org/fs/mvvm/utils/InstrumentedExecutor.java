@@ -0,0 +1,91 @@
+/*
+ * MVVM Android Copyright (C) 2017 Fatih.
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.utils;
+
+import android.os.Process;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread pool with a fixed count of threads that measures how long each task waits in its
+ * queue before it runs.
+ */
+final class InstrumentedExecutor extends ThreadPoolExecutor {
+
+  private final static long KEEP_ALIVE = 30L;
+
+  private final String name;
+  private final LatencyHistogram waits = new LatencyHistogram();
+
+  InstrumentedExecutor(String name, int threads, int priority) {
+    super(threads, threads, KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new PoolThreadFactory(name, priority));
+    this.name = name;
+    allowCoreThreadTimeOut(true);
+  }
+
+  @Override public void execute(Runnable command) {
+    super.execute(new TimedRunnable(command, waits));
+  }
+
+  String name() {
+    return name;
+  }
+
+  LatencyHistogram waits() {
+    return waits;
+  }
+
+  private static final class TimedRunnable implements Runnable {
+
+    private final Runnable command;
+    private final LatencyHistogram waits;
+    private final long queuedAt = System.nanoTime();
+
+    TimedRunnable(Runnable command, LatencyHistogram waits) {
+      this.command = command;
+      this.waits = waits;
+    }
+
+    @Override public void run() {
+      waits.record(System.nanoTime() - queuedAt);
+      command.run();
+    }
+  }
+
+  private static final class PoolThreadFactory implements ThreadFactory {
+
+    private final String name;
+    private final int priority;
+    private final AtomicInteger count = new AtomicInteger(0);
+
+    PoolThreadFactory(String name, int priority) {
+      this.name = name;
+      this.priority = priority;
+    }
+
+    @Override public Thread newThread(Runnable runnable) {
+      final Thread thread = new Thread(() -> {
+        Process.setThreadPriority(priority);
+        runnable.run();
+      }, "mvvm-" + name + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
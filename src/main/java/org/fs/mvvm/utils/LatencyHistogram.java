@@ -0,0 +1,134 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram with fixed buckets in the manner of HdrHistogram, values are kept in
+ * microseconds with eight sub-buckets for each power of two, that is about 12% precision,
+ * up to roughly nineteen hours. Recording does not allocate and can be called from any thread.
+ */
+public final class LatencyHistogram {
+
+  private final static int SUB_BUCKET_BITS = 3;
+  private final static int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private final static int MAX_EXPONENT = 35;
+  private final static int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+  private final AtomicLong count = new AtomicLong(0L);
+  private final AtomicLong total = new AtomicLong(0L);
+  private final AtomicLong max = new AtomicLong(0L);
+
+  /**
+   * Records a latency
+   *
+   * @param nanos latency in nanoseconds
+   */
+  public void record(long nanos) {
+    final long micros = nanos < 0L ? 0L : nanos / 1000L;
+    buckets.incrementAndGet(indexOf(micros));
+    count.incrementAndGet();
+    total.addAndGet(micros);
+    long current;
+    while (micros > (current = max.get())) {
+      if (max.compareAndSet(current, micros)) {
+        break;
+      }
+    }
+  }
+
+  public long count() {
+    return count.get();
+  }
+
+  /**
+   * Largest recorded latency
+   *
+   * @return latency in microseconds
+   */
+  public long max() {
+    return max.get();
+  }
+
+  /**
+   * Mean of recorded latencies
+   *
+   * @return latency in microseconds
+   */
+  public long mean() {
+    final long size = count.get();
+    return size == 0L ? 0L : total.get() / size;
+  }
+
+  /**
+   * Upper bound of bucket that holds given percentile of recorded latencies
+   *
+   * @param percentile percentile between 0 and 100
+   * @return latency in microseconds
+   */
+  public long percentile(double percentile) {
+    Preconditions.checkConditionMeet(percentile >= 0d && percentile <= 100d, "percentile must be in [0, 100]");
+    long size = 0L;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      size += buckets.get(i);
+    }
+    if (size == 0L) {
+      return 0L;
+    }
+    final long target = Math.max(1L, (long) Math.ceil(percentile / 100d * size));
+    long cumulative = 0L;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      cumulative += buckets.get(i);
+      if (cumulative >= target) {
+        return Math.min(upperBoundOf(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  public void reset() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      buckets.set(i, 0L);
+    }
+    count.set(0L);
+    total.set(0L);
+    max.set(0L);
+  }
+
+  static int indexOf(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    final int exponent = 63 - Long.numberOfLeadingZeros(value);
+    if (exponent > MAX_EXPONENT) {
+      return BUCKET_COUNT - 1;
+    }
+    final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+    return SUB_BUCKET_COUNT + (exponent - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT + subBucket;
+  }
+
+  static long upperBoundOf(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    final int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+    final int subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+    return ((long) (SUB_BUCKET_COUNT + subBucket + 1) << shift) - 1L;
+  }
+}
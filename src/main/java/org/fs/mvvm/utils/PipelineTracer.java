@@ -0,0 +1,430 @@
+/*
+ * MVVM Android Copyright (C) 2017 Fatih.
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.utils;
+
+import io.reactivex.functions.Function;
+import io.reactivex.plugins.RxJavaPlugins;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stage timing of use case pipelines, streams composed with {@code RxUtility.trace*} record
+ * time from subscribe to first item and to termination, and thread hops between signals, under
+ * name of use case. Optional schedule hook records how long tasks wait for a scheduler thread.
+ * Timings are kept in fixed bucket histograms and reported to a sink as percentile summaries.
+ */
+public final class PipelineTracer {
+
+  private final static ConcurrentHashMap<String, Stages> stages = new ConcurrentHashMap<>();
+  private final static ConcurrentHashMap<String, LatencyHistogram> waits = new ConcurrentHashMap<>();
+
+  private final static ThreadLocal<LatencyHistogram> threadWaits = new ThreadLocal<LatencyHistogram>() {
+    @Override protected LatencyHistogram initialValue() {
+      return histogram(waits, schedulerOf(Thread.currentThread().getName()));
+    }
+  };
+
+  private static volatile boolean enabled = false;
+  private static volatile Sink sink;
+
+  private static Function<? super Runnable, ? extends Runnable> previousHandler;
+  private static boolean hooked = false;
+
+  public enum Stage {
+
+    /**
+     * Subscribe to first item or success
+     */
+    FIRST_ITEM,
+
+    /**
+     * Subscribe to complete, error or dispose
+     */
+    TERMINATE,
+
+    /**
+     * Schedule to run of a task on scheduler thread, name is name of scheduler
+     */
+    SCHEDULER_WAIT
+  }
+
+  public enum Outcome {
+
+    COMPLETE,
+
+    ERROR,
+
+    DISPOSE
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Enables tracing, traced streams subscribed while disabled are not measured
+   *
+   * @param enabled true to record timings
+   */
+  public static void setEnabled(boolean enabled) {
+    PipelineTracer.enabled = enabled;
+  }
+
+  /**
+   * Sets sink that receives each finished trace and summaries passed to {@link #report()}
+   *
+   * @param sink sink or null to remove it
+   */
+  public static void setSink(Sink sink) {
+    PipelineTracer.sink = sink;
+  }
+
+  /**
+   * Installs schedule handler of {@link RxJavaPlugins} that records wait of each scheduled
+   * task, handler that was set before is kept and applied after it
+   */
+  public static synchronized void installScheduleHook() {
+    if (!hooked) {
+      final Function<? super Runnable, ? extends Runnable> previous = RxJavaPlugins.getScheduleHandler();
+      previousHandler = previous;
+      RxJavaPlugins.setScheduleHandler(run -> {
+        final Runnable task = previous != null ? previous.apply(run) : run;
+        if (!enabled) {
+          return task;
+        }
+        final long scheduledAt = System.nanoTime();
+        return () -> {
+          threadWaits.get().record(System.nanoTime() - scheduledAt);
+          task.run();
+        };
+      });
+      hooked = true;
+    }
+  }
+
+  public static synchronized void uninstallScheduleHook() {
+    if (hooked) {
+      RxJavaPlugins.setScheduleHandler(previousHandler);
+      previousHandler = null;
+      hooked = false;
+    }
+  }
+
+  /**
+   * Summaries of each use case and scheduler, latencies are in microseconds
+   *
+   * @return summaries
+   */
+  public static List<StageStats> summaries() {
+    final List<StageStats> summaries = new ArrayList<>();
+    for (Map.Entry<String, Stages> entry : stages.entrySet()) {
+      final Stages timings = entry.getValue();
+      summaries.add(StageStats.of(entry.getKey(), Stage.FIRST_ITEM, timings.firstItem, timings.hops.get()));
+      summaries.add(StageStats.of(entry.getKey(), Stage.TERMINATE, timings.terminate, timings.hops.get()));
+    }
+    for (Map.Entry<String, LatencyHistogram> entry : waits.entrySet()) {
+      summaries.add(StageStats.of(entry.getKey(), Stage.SCHEDULER_WAIT, entry.getValue(), 0L));
+    }
+    return Collections.unmodifiableList(summaries);
+  }
+
+  /**
+   * Passes current summaries to sink if there is one
+   */
+  public static void report() {
+    final Sink callback = sink;
+    if (callback != null) {
+      callback.onSummary(summaries());
+    }
+  }
+
+  public static void reset() {
+    stages.clear();
+    // scheduler threads keep their histogram, so it is cleared in place
+    for (LatencyHistogram histogram : waits.values()) {
+      histogram.reset();
+    }
+  }
+
+  static Span span(String name) {
+    return new Span(name);
+  }
+
+  private static LatencyHistogram histogram(ConcurrentHashMap<String, LatencyHistogram> histograms, String name) {
+    LatencyHistogram histogram = histograms.get(name);
+    if (histogram == null) {
+      final LatencyHistogram newHistogram = new LatencyHistogram();
+      histogram = histograms.putIfAbsent(name, newHistogram);
+      if (histogram == null) {
+        histogram = newHistogram;
+      }
+    }
+    return histogram;
+  }
+
+  private static Stages stagesOf(String name) {
+    Stages timings = stages.get(name);
+    if (timings == null) {
+      final Stages newTimings = new Stages();
+      timings = stages.putIfAbsent(name, newTimings);
+      if (timings == null) {
+        timings = newTimings;
+      }
+    }
+    return timings;
+  }
+
+  private static String schedulerOf(String threadName) {
+    // threads of a pool differ only in trailing index such as RxCachedThreadScheduler-3
+    int end = threadName.length();
+    while (end > 0 && Character.isDigit(threadName.charAt(end - 1))) {
+      end--;
+    }
+    if (end > 0 && end < threadName.length() && threadName.charAt(end - 1) == '-') {
+      end--;
+    }
+    return end == 0 ? threadName : threadName.substring(0, end);
+  }
+
+  private PipelineTracer() {
+    throw new RuntimeException("You can not have instance of this type");
+  }
+
+  public interface Sink {
+
+    /**
+     * Called on terminating thread when a traced stream terminates
+     *
+     * @param trace timings of stream
+     */
+    void onTrace(Trace trace);
+
+    /**
+     * Called with summaries when {@link #report()} is called
+     *
+     * @param summaries summaries of use cases and schedulers
+     */
+    void onSummary(List<StageStats> summaries);
+  }
+
+  private static final class Stages {
+
+    final LatencyHistogram firstItem = new LatencyHistogram();
+    final LatencyHistogram terminate = new LatencyHistogram();
+    final AtomicLong hops = new AtomicLong(0L);
+  }
+
+  /**
+   * Timings of one subscription, signals of a stream are serialized so fields are only written
+   * by one thread at a time
+   */
+  static final class Span {
+
+    private final String name;
+
+    private long subscribedAt;
+    private long firstItemAt = -1L;
+    private Thread lastThread;
+    private int hops;
+    private long items;
+    private boolean terminated;
+
+    Span(String name) {
+      this.name = name;
+    }
+
+    void subscribed() {
+      subscribedAt = System.nanoTime();
+      lastThread = Thread.currentThread();
+    }
+
+    void item() {
+      final long now = System.nanoTime();
+      hop();
+      if (firstItemAt < 0L) {
+        firstItemAt = now;
+      }
+      items++;
+    }
+
+    void completed() {
+      terminate(Outcome.COMPLETE);
+    }
+
+    void failed() {
+      terminate(Outcome.ERROR);
+    }
+
+    void disposed() {
+      terminate(Outcome.DISPOSE);
+    }
+
+    private void hop() {
+      final Thread current = Thread.currentThread();
+      if (current != lastThread) {
+        lastThread = current;
+        hops++;
+      }
+    }
+
+    private void terminate(Outcome outcome) {
+      if (terminated) {
+        return;
+      }
+      terminated = true;
+      final long now = System.nanoTime();
+      if (outcome != Outcome.DISPOSE) {
+        hop();
+      }
+      final Stages timings = stagesOf(name);
+      if (firstItemAt >= 0L) {
+        timings.firstItem.record(firstItemAt - subscribedAt);
+      }
+      timings.terminate.record(now - subscribedAt);
+      timings.hops.addAndGet(hops);
+      final Sink callback = sink;
+      if (callback != null) {
+        callback.onTrace(new Trace(name, outcome, firstItemAt < 0L ? -1L : firstItemAt - subscribedAt,
+            now - subscribedAt, hops, items));
+      }
+    }
+  }
+
+  public static final class Trace {
+
+    private final String name;
+    private final Outcome outcome;
+    private final long firstItem;
+    private final long duration;
+    private final int hops;
+    private final long items;
+
+    Trace(String name, Outcome outcome, long firstItem, long duration, int hops, long items) {
+      this.name = name;
+      this.outcome = outcome;
+      this.firstItem = firstItem;
+      this.duration = duration;
+      this.hops = hops;
+      this.items = items;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public Outcome getOutcome() {
+      return outcome;
+    }
+
+    /**
+     * Nanoseconds from subscribe to first item, -1 if there was none
+     */
+    public long getFirstItem() {
+      return firstItem;
+    }
+
+    /**
+     * Nanoseconds from subscribe to termination
+     */
+    public long getDuration() {
+      return duration;
+    }
+
+    /**
+     * Count of signals that arrived on a different thread than the signal before
+     */
+    public int getHops() {
+      return hops;
+    }
+
+    public long getItems() {
+      return items;
+    }
+  }
+
+  public static final class StageStats {
+
+    private final String name;
+    private final Stage stage;
+    private final long count;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long max;
+    private final long hops;
+
+    static StageStats of(String name, Stage stage, LatencyHistogram histogram, long hops) {
+      return new StageStats(name, stage, histogram.count(), histogram.percentile(50d),
+          histogram.percentile(90d), histogram.percentile(99d), histogram.max(), hops);
+    }
+
+    StageStats(String name, Stage stage, long count, long p50, long p90, long p99, long max, long hops) {
+      this.name = name;
+      this.stage = stage;
+      this.count = count;
+      this.p50 = p50;
+      this.p90 = p90;
+      this.p99 = p99;
+      this.max = max;
+      this.hops = hops;
+    }
+
+    /**
+     * Name of use case, or of scheduler for {@link Stage#SCHEDULER_WAIT}
+     */
+    public String getName() {
+      return name;
+    }
+
+    public Stage getStage() {
+      return stage;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * Latencies in microseconds
+     */
+    public long getP50() {
+      return p50;
+    }
+
+    public long getP90() {
+      return p90;
+    }
+
+    public long getP99() {
+      return p99;
+    }
+
+    public long getMax() {
+      return max;
+    }
+
+    /**
+     * Thread hops of all traced subscriptions of use case
+     */
+    public long getHops() {
+      return hops;
+    }
+  }
+}
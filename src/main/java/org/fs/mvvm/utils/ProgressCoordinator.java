@@ -0,0 +1,150 @@
+/*
+ * MVVM Android Copyright (C) 2017 Fatih.
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import org.fs.mvvm.data.ViewType;
+
+/**
+ * Coordinates progress indicator of a view for all streams that run on it, it counts active
+ * operations and shows indicator only if they outlast grace delay, once shown indicator stays
+ * visible for minimum time so it does not flicker. State is only touched on main thread.
+ */
+public final class ProgressCoordinator {
+
+  private final static long DEFAULT_GRACE_DELAY = 150L;
+  private final static long DEFAULT_MIN_VISIBLE = 500L;
+
+  private final static Handler uiThread = new Handler(Looper.getMainLooper());
+  private final static Map<ViewType, ProgressCoordinator> coordinators = new WeakHashMap<>();
+
+  private static volatile long graceDelay = DEFAULT_GRACE_DELAY;
+  private static volatile long minVisible = DEFAULT_MIN_VISIBLE;
+
+  private final WeakReference<ViewType> view;
+  private final Runnable begin = this::onBegin;
+  private final Runnable end = this::onEnd;
+  private final Runnable show = this::onShow;
+  private final Runnable hide = this::onHide;
+
+  private int active = 0;
+  private boolean shown = false;
+  private long shownAt = 0L;
+
+  /**
+   * Coordinator of view, same instance is returned for same view while view is reachable
+   *
+   * @param view view to show progress on
+   * @return coordinator of view
+   */
+  public static ProgressCoordinator of(ViewType view) {
+    Preconditions.checkNotNull(view, "view is null");
+    synchronized (coordinators) {
+      ProgressCoordinator coordinator = coordinators.get(view);
+      if (coordinator == null) {
+        coordinator = new ProgressCoordinator(view);
+        coordinators.put(view, coordinator);
+      }
+      return coordinator;
+    }
+  }
+
+  /**
+   * Sets delays of all coordinators
+   *
+   * @param grace time in milliseconds operations run before indicator is shown
+   * @param visible minimum time in milliseconds indicator stays visible once shown
+   */
+  public static void setDelays(long grace, long visible) {
+    Preconditions.checkConditionMeet(grace >= 0L, "grace can not be negative");
+    Preconditions.checkConditionMeet(visible >= 0L, "visible can not be negative");
+    graceDelay = grace;
+    minVisible = visible;
+  }
+
+  private ProgressCoordinator(ViewType view) {
+    this.view = new WeakReference<>(view);
+  }
+
+  public void begin() {
+    runOnUiThread(begin);
+  }
+
+  public void end() {
+    runOnUiThread(end);
+  }
+
+  private void onBegin() {
+    active++;
+    if (active == 1) {
+      if (shown) {
+        uiThread.removeCallbacks(hide);
+      } else {
+        uiThread.postDelayed(show, graceDelay);
+      }
+    }
+  }
+
+  private void onEnd() {
+    if (active == 0) {
+      return;
+    }
+    active--;
+    if (active == 0) {
+      uiThread.removeCallbacks(show);
+      if (shown) {
+        final long remaining = minVisible - (SystemClock.uptimeMillis() - shownAt);
+        if (remaining > 0L) {
+          uiThread.postDelayed(hide, remaining);
+        } else {
+          onHide();
+        }
+      }
+    }
+  }
+
+  private void onShow() {
+    final ViewType target = view.get();
+    if (active > 0 && !shown && target != null && target.isAvailable()) {
+      target.showProgress();
+      shown = true;
+      shownAt = SystemClock.uptimeMillis();
+    }
+  }
+
+  private void onHide() {
+    if (active == 0 && shown) {
+      shown = false;
+      final ViewType target = view.get();
+      if (target != null && target.isAvailable()) {
+        target.hideProgress();
+      }
+    }
+  }
+
+  private static void runOnUiThread(Runnable action) {
+    if (Looper.myLooper() == Looper.getMainLooper()) {
+      action.run();
+    } else {
+      uiThread.post(action);
+    }
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * MVVM Android Copyright (C) 2017 Fatih.
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.utils;
+
+import android.os.SystemClock;
+import android.util.LruCache;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+import java.lang.ref.SoftReference;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size bounded LRU cache of use case results with time to live for each entry. Values are
+ * kept either strongly or softly, soft values can be reclaimed under memory pressure. With
+ * stale while revalidate an expired value is still returned at once while a refresh of it
+ * runs in background, refreshes of same key are shared.
+ */
+public final class ResultCache {
+
+  public enum Strength {
+
+    STRONG,
+
+    SOFT
+  }
+
+  private final LruCache<Object, Entry> entries;
+  private final SingleFlight refreshes = SingleFlight.create();
+  private final long ttl;
+  private final Strength strength;
+  private final boolean staleWhileRevalidate;
+
+  public static ResultCache create(int maxSize, long ttl, TimeUnit unit) {
+    return new ResultCache(maxSize, ttl, unit, Strength.STRONG, false);
+  }
+
+  /**
+   * Creates a cache
+   *
+   * @param maxSize count of entries kept
+   * @param ttl time to live of entry
+   * @param unit unit of ttl
+   * @param strength how values are referenced
+   * @param staleWhileRevalidate whether expired values are returned while they are refreshed
+   * @return cache
+   */
+  public static ResultCache create(int maxSize, long ttl, TimeUnit unit, Strength strength,
+      boolean staleWhileRevalidate) {
+    return new ResultCache(maxSize, ttl, unit, strength, staleWhileRevalidate);
+  }
+
+  private ResultCache(int maxSize, long ttl, TimeUnit unit, Strength strength, boolean staleWhileRevalidate) {
+    Preconditions.checkConditionMeet(maxSize > 0, "maxSize must be positive");
+    Preconditions.checkConditionMeet(ttl > 0L, "ttl must be positive");
+    Preconditions.checkNotNull(unit, "unit is null");
+    Preconditions.checkNotNull(strength, "strength is null");
+    this.entries = new LruCache<>(maxSize);
+    this.ttl = unit.toMillis(ttl);
+    this.strength = strength;
+    this.staleWhileRevalidate = staleWhileRevalidate;
+  }
+
+  public void invalidate(Object key) {
+    Preconditions.checkNotNull(key, "key is null");
+    entries.remove(key);
+  }
+
+  public void clear() {
+    entries.evictAll();
+  }
+
+  @SuppressWarnings("unchecked")
+  <T> Single<T> single(Object key, Single<T> source) {
+    final Single<T> load = source.doOnSuccess(value -> put(key, value));
+    final Entry entry = entries.get(key);
+    final T value = entry != null ? (T) entry.value() : null;
+    if (value != null) {
+      if (!entry.isExpired()) {
+        return Single.just(value);
+      }
+      if (staleWhileRevalidate) {
+        refresh(key, load.toMaybe());
+        return Single.just(value);
+      }
+    }
+    return load;
+  }
+
+  @SuppressWarnings("unchecked")
+  <T> Maybe<T> maybe(Object key, Maybe<T> source) {
+    final Maybe<T> load = source.doOnSuccess(value -> put(key, value));
+    final Entry entry = entries.get(key);
+    final T value = entry != null ? (T) entry.value() : null;
+    if (value != null) {
+      if (!entry.isExpired()) {
+        return Maybe.just(value);
+      }
+      if (staleWhileRevalidate) {
+        refresh(key, load);
+        return Maybe.just(value);
+      }
+    }
+    return load;
+  }
+
+  private <T> void put(Object key, T value) {
+    entries.put(key, new Entry(value, strength, SystemClock.elapsedRealtime() + ttl));
+  }
+
+  private <T> void refresh(Object key, Maybe<T> load) {
+    // refresh never runs on subscribing thread, failure keeps stale value for next attempt
+    refreshes.join(key, load.toObservable())
+        .subscribeOn(RxUtility.schedulers().io())
+        .subscribe(value -> { }, error -> { });
+  }
+
+  private static final class Entry {
+
+    private final Object strong;
+    private final SoftReference<Object> soft;
+    private final long expiresAt;
+
+    Entry(Object value, Strength strength, long expiresAt) {
+      this.strong = strength == Strength.STRONG ? value : null;
+      this.soft = strength == Strength.SOFT ? new SoftReference<>(value) : null;
+      this.expiresAt = expiresAt;
+    }
+
+    Object value() {
+      return soft != null ? soft.get() : strong;
+    }
+
+    boolean isExpired() {
+      return SystemClock.elapsedRealtime() >= expiresAt;
+    }
+  }
+}
@@ -15,98 +15,440 @@
  */
 package org.fs.mvvm.utils;
 
+import android.arch.lifecycle.Lifecycle;
+import io.reactivex.Completable;
 import io.reactivex.CompletableTransformer;
+import io.reactivex.Maybe;
 import io.reactivex.MaybeTransformer;
+import io.reactivex.Observable;
 import io.reactivex.ObservableTransformer;
+import io.reactivex.Single;
 import io.reactivex.SingleTransformer;
-import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.annotations.NonNull;
 import io.reactivex.annotations.Nullable;
-import io.reactivex.schedulers.Schedulers;
+import java.io.IOException;
 import org.fs.mvvm.data.ViewType;
+import retrofit2.HttpException;
 
 public final class RxUtility {
 
+  private final static SingleFlight flights = SingleFlight.create();
+
+  private static volatile SchedulerProvider schedulerProvider;
+
+  /**
+   * Scheduler provider that async transformers use, {@link BoundedSchedulerProvider} unless
+   * another one is set
+   *
+   * @return scheduler provider
+   */
+  public static SchedulerProvider schedulers() {
+    SchedulerProvider provider = schedulerProvider;
+    if (provider == null) {
+      synchronized (RxUtility.class) {
+        provider = schedulerProvider;
+        if (provider == null) {
+          provider = BoundedSchedulerProvider.create();
+          schedulerProvider = provider;
+        }
+      }
+    }
+    return provider;
+  }
+
+  public static void setSchedulerProvider(SchedulerProvider provider) {
+    Preconditions.checkNotNull(provider, "provider is null");
+    schedulerProvider = provider;
+  }
+
   public static <T> ObservableTransformer<T, T> asyncObservable() {
     return source -> source
-      .subscribeOn(Schedulers.io())
-      .observeOn(AndroidSchedulers.mainThread());
+      .subscribeOn(schedulers().io())
+      .observeOn(schedulers().main());
   }
 
   public static <T> ObservableTransformer<T, T> asyncObservableAndUI(@Nullable final ViewType view) {
     return source -> source
       .compose(RxUtility.asyncObservable())
-      .doOnSubscribe(d -> {
-        if (view != null && view.isAvailable()) {
-          view.showProgress();
-        }
-      }).doFinally(() -> {
-        if (view != null && view.isAvailable()) {
-          view.hideProgress();
-        }
-      });
+      .doOnSubscribe(d -> beginProgress(view))
+      .doFinally(() -> endProgress(view));
   }
 
   public static <T> SingleTransformer<T, T> asyncSingle() {
     return source -> source
-      .subscribeOn(Schedulers.io())
-      .observeOn(AndroidSchedulers.mainThread());
+      .subscribeOn(schedulers().io())
+      .observeOn(schedulers().main());
   }
 
   public static <T> SingleTransformer<T, T> asyncSingleAndUI(@Nullable final ViewType view) {
     return source -> source
       .compose(asyncSingle())
-      .doOnSuccess(d -> {
-        if (view != null && view.isAvailable()) {
-          view.showProgress();
-        }
-      }).doFinally(() -> {
-        if (view != null && view.isAvailable()) {
-          view.hideProgress();
-        }
-      });
+      .doOnSubscribe(d -> beginProgress(view))
+      .doFinally(() -> endProgress(view));
   }
 
   public static <T> MaybeTransformer<T, T> asyncMaybe() {
     return source -> source
-      .subscribeOn(Schedulers.io())
-      .observeOn(AndroidSchedulers.mainThread());
+      .subscribeOn(schedulers().io())
+      .observeOn(schedulers().main());
   }
 
   public static <T> MaybeTransformer<T, T> asyncMaybeAndUI(@Nullable final ViewType view) {
     return source -> source
       .compose(asyncMaybe())
-      .doOnSubscribe(d -> {
-        if (view != null && view.isAvailable()) {
-          view.showProgress();
-        }
-      })
-      .doFinally(() -> {
-        if (view != null && view.isAvailable()) {
-          view.hideProgress();
-        }
-      });
+      .doOnSubscribe(d -> beginProgress(view))
+      .doFinally(() -> endProgress(view));
   }
 
   public static CompletableTransformer asyncCompletable() {
     return source -> source
-      .subscribeOn(Schedulers.io())
-      .observeOn(AndroidSchedulers.mainThread());
+      .subscribeOn(schedulers().io())
+      .observeOn(schedulers().main());
   }
 
   public static CompletableTransformer asyncCompletableAndUI(@NonNull final ViewType view) {
     return source -> source
       .compose(asyncCompletable())
-      .doOnSubscribe(d -> {
-        if (view != null && view.isAvailable()) {
-          view.showProgress();
-        }
-      })
-      .doFinally(() -> {
-        if (view != null && view.isAvailable()) {
-          view.hideProgress();
-        }
-      });
+      .doOnSubscribe(d -> beginProgress(view))
+      .doFinally(() -> endProgress(view));
+  }
+
+  /**
+   * Moves work composed after it, such as mapping responses to view models, to parsing
+   * scheduler, so it neither holds an io thread nor runs on main thread
+   *
+   * @param <T> type of item
+   * @return transformer
+   */
+  public static <T> ObservableTransformer<T, T> parseObservable() {
+    return source -> source.observeOn(schedulers().parsing());
+  }
+
+  public static <T> SingleTransformer<T, T> parseSingle() {
+    return source -> source.observeOn(schedulers().parsing());
+  }
+
+  public static <T> MaybeTransformer<T, T> parseMaybe() {
+    return source -> source.observeOn(schedulers().parsing());
+  }
+
+  /**
+   * Shares one upstream subscription among concurrent subscribers of same key, so several
+   * bindings that trigger same use case at once run it once
+   *
+   * @param key key of use case
+   * @param <T> type of item
+   * @return transformer
+   */
+  public static <T> ObservableTransformer<T, T> singleFlightObservable(@NonNull final Object key) {
+    return singleFlightObservable(flights, key);
+  }
+
+  public static <T> ObservableTransformer<T, T> singleFlightObservable(@NonNull final SingleFlight group,
+      @NonNull final Object key) {
+    Preconditions.checkNotNull(group, "group is null");
+    Preconditions.checkNotNull(key, "key is null");
+    return source -> Observable.defer(() -> group.join(key, source));
+  }
+
+  /**
+   * Shares one upstream subscription among concurrent subscribers of same key, so several
+   * bindings that trigger same use case at once run it once
+   *
+   * @param key key of use case
+   * @param <T> type of item
+   * @return transformer
+   */
+  public static <T> SingleTransformer<T, T> singleFlightSingle(@NonNull final Object key) {
+    return singleFlightSingle(flights, key);
+  }
+
+  public static <T> SingleTransformer<T, T> singleFlightSingle(@NonNull final SingleFlight group,
+      @NonNull final Object key) {
+    Preconditions.checkNotNull(group, "group is null");
+    Preconditions.checkNotNull(key, "key is null");
+    return source -> Observable.defer(() -> group.join(key, source.toObservable()))
+      .singleOrError();
+  }
+
+  /**
+   * Caches success value of single by key, value is returned without subscribing to source
+   * until its time to live passes
+   *
+   * @param cache cache to keep value in
+   * @param key key of use case
+   * @param <T> type of value
+   * @return transformer
+   */
+  public static <T> SingleTransformer<T, T> cacheSingle(@NonNull final ResultCache cache, @NonNull final Object key) {
+    Preconditions.checkNotNull(cache, "cache is null");
+    Preconditions.checkNotNull(key, "key is null");
+    return source -> Single.defer(() -> cache.single(key, source));
+  }
+
+  /**
+   * Caches success value of maybe by key, value is returned without subscribing to source
+   * until its time to live passes; empty results are not cached
+   *
+   * @param cache cache to keep value in
+   * @param key key of use case
+   * @param <T> type of value
+   * @return transformer
+   */
+  public static <T> MaybeTransformer<T, T> cacheMaybe(@NonNull final ResultCache cache, @NonNull final Object key) {
+    Preconditions.checkNotNull(cache, "cache is null");
+    Preconditions.checkNotNull(key, "key is null");
+    return source -> Maybe.defer(() -> cache.maybe(key, source));
+  }
+
+  /**
+   * Binds stream to lifecycle, it completes when event occurs
+   *
+   * @param lifecycle lifecycle events, such as {@code viewModel.lifecycle()}
+   * @param event event to complete on
+   * @param <T> type of item
+   * @return transformer
+   */
+  public static <T> ObservableTransformer<T, T> bindObservable(@NonNull final Observable<Lifecycle.Event> lifecycle,
+      @NonNull final Lifecycle.Event event) {
+    Preconditions.checkNotNull(lifecycle, "lifecycle is null");
+    Preconditions.checkNotNull(event, "event is null");
+    return source -> source.takeUntil(lifecycle.filter(e -> e == event));
+  }
+
+  /**
+   * Binds stream to lifecycle, it fails with {@link java.util.concurrent.CancellationException}
+   * when event occurs before success
+   *
+   * @param lifecycle lifecycle events, such as {@code viewModel.lifecycle()}
+   * @param event event to cancel on
+   * @param <T> type of value
+   * @return transformer
+   */
+  public static <T> SingleTransformer<T, T> bindSingle(@NonNull final Observable<Lifecycle.Event> lifecycle,
+      @NonNull final Lifecycle.Event event) {
+    Preconditions.checkNotNull(lifecycle, "lifecycle is null");
+    Preconditions.checkNotNull(event, "event is null");
+    return source -> source.takeUntil(lifecycle.filter(e -> e == event).firstOrError());
+  }
+
+  /**
+   * Binds stream to lifecycle, it completes empty when event occurs before success
+   *
+   * @param lifecycle lifecycle events, such as {@code viewModel.lifecycle()}
+   * @param event event to complete on
+   * @param <T> type of value
+   * @return transformer
+   */
+  public static <T> MaybeTransformer<T, T> bindMaybe(@NonNull final Observable<Lifecycle.Event> lifecycle,
+      @NonNull final Lifecycle.Event event) {
+    Preconditions.checkNotNull(lifecycle, "lifecycle is null");
+    Preconditions.checkNotNull(event, "event is null");
+    return source -> source.takeUntil(lifecycle.filter(e -> e == event).firstElement());
+  }
+
+  /**
+   * Binds stream to lifecycle, it completes when event occurs
+   *
+   * @param lifecycle lifecycle events, such as {@code viewModel.lifecycle()}
+   * @param event event to complete on
+   * @return transformer
+   */
+  public static CompletableTransformer bindCompletable(@NonNull final Observable<Lifecycle.Event> lifecycle,
+      @NonNull final Lifecycle.Event event) {
+    Preconditions.checkNotNull(lifecycle, "lifecycle is null");
+    Preconditions.checkNotNull(event, "event is null");
+    return source -> Completable.ambArray(source, lifecycle.filter(e -> e == event).take(1).ignoreElements());
+  }
+
+  /**
+   * Retries stream with backoff when it fails with an error backoff accepts, compose it
+   * outside of {@link #breakerObservable(CircuitBreaker)} so open circuit is not retried
+   *
+   * @param backoff backoff of retries
+   * @param <T> type of item
+   * @return transformer
+   */
+  public static <T> ObservableTransformer<T, T> retryObservable(@NonNull final Backoff backoff) {
+    Preconditions.checkNotNull(backoff, "backoff is null");
+    return source -> source.retryWhen(backoff::retries);
+  }
+
+  public static <T> SingleTransformer<T, T> retrySingle(@NonNull final Backoff backoff) {
+    Preconditions.checkNotNull(backoff, "backoff is null");
+    return source -> source.retryWhen(backoff::retries);
+  }
+
+  public static <T> MaybeTransformer<T, T> retryMaybe(@NonNull final Backoff backoff) {
+    Preconditions.checkNotNull(backoff, "backoff is null");
+    return source -> source.retryWhen(backoff::retries);
+  }
+
+  public static CompletableTransformer retryCompletable(@NonNull final Backoff backoff) {
+    Preconditions.checkNotNull(backoff, "backoff is null");
+    return source -> source.retryWhen(backoff::retries);
+  }
+
+  /**
+   * Guards stream with circuit breaker, it fails with
+   * {@link CircuitBreaker.CircuitOpenException} without subscribing to source while circuit is open
+   *
+   * @param breaker breaker of endpoint, such as {@code CircuitBreaker.forKey("users")}
+   * @param <T> type of item
+   * @return transformer
+   */
+  public static <T> ObservableTransformer<T, T> breakerObservable(@NonNull final CircuitBreaker breaker) {
+    Preconditions.checkNotNull(breaker, "breaker is null");
+    return source -> Observable.defer(() -> {
+      final Object token = breaker.tryAcquire();
+      if (token == null) {
+        return Observable.error(breaker.openException());
+      }
+      return source.doOnNext(item -> breaker.onSuccess(token))
+        .doOnComplete(() -> breaker.onSuccess(token))
+        .doOnError(error -> breaker.onError(token, error))
+        .doOnDispose(() -> breaker.onCancel(token));
+    });
+  }
+
+  public static <T> SingleTransformer<T, T> breakerSingle(@NonNull final CircuitBreaker breaker) {
+    Preconditions.checkNotNull(breaker, "breaker is null");
+    return source -> Single.defer(() -> {
+      final Object token = breaker.tryAcquire();
+      if (token == null) {
+        return Single.error(breaker.openException());
+      }
+      return source.doOnSuccess(value -> breaker.onSuccess(token))
+        .doOnError(error -> breaker.onError(token, error))
+        .doOnDispose(() -> breaker.onCancel(token));
+    });
+  }
+
+  public static <T> MaybeTransformer<T, T> breakerMaybe(@NonNull final CircuitBreaker breaker) {
+    Preconditions.checkNotNull(breaker, "breaker is null");
+    return source -> Maybe.defer(() -> {
+      final Object token = breaker.tryAcquire();
+      if (token == null) {
+        return Maybe.error(breaker.openException());
+      }
+      return source.doOnSuccess(value -> breaker.onSuccess(token))
+        .doOnComplete(() -> breaker.onSuccess(token))
+        .doOnError(error -> breaker.onError(token, error))
+        .doOnDispose(() -> breaker.onCancel(token));
+    });
+  }
+
+  public static CompletableTransformer breakerCompletable(@NonNull final CircuitBreaker breaker) {
+    Preconditions.checkNotNull(breaker, "breaker is null");
+    return source -> Completable.defer(() -> {
+      final Object token = breaker.tryAcquire();
+      if (token == null) {
+        return Completable.error(breaker.openException());
+      }
+      return source.doOnComplete(() -> breaker.onSuccess(token))
+        .doOnError(error -> breaker.onError(token, error))
+        .doOnDispose(() -> breaker.onCancel(token));
+    });
+  }
+
+  /**
+   * Records time to first item, time to termination and thread hops of stream under name of
+   * use case when {@link PipelineTracer} is enabled; compose it before observeOn to measure
+   * work upstream and after it to include delivery on main thread
+   *
+   * @param name name of use case
+   * @param <T> type of item
+   * @return transformer
+   */
+  public static <T> ObservableTransformer<T, T> traceObservable(@NonNull final String name) {
+    Preconditions.checkNotNull(name, "name is null");
+    return source -> Observable.defer(() -> {
+      if (!PipelineTracer.isEnabled()) {
+        return source;
+      }
+      final PipelineTracer.Span span = PipelineTracer.span(name);
+      return source.doOnSubscribe(d -> span.subscribed())
+        .doOnNext(item -> span.item())
+        .doOnComplete(span::completed)
+        .doOnError(error -> span.failed())
+        .doOnDispose(span::disposed);
+    });
+  }
+
+  public static <T> SingleTransformer<T, T> traceSingle(@NonNull final String name) {
+    Preconditions.checkNotNull(name, "name is null");
+    return source -> Single.defer(() -> {
+      if (!PipelineTracer.isEnabled()) {
+        return source;
+      }
+      final PipelineTracer.Span span = PipelineTracer.span(name);
+      return source.doOnSubscribe(d -> span.subscribed())
+        .doOnSuccess(value -> {
+          span.item();
+          span.completed();
+        })
+        .doOnError(error -> span.failed())
+        .doOnDispose(span::disposed);
+    });
+  }
+
+  public static <T> MaybeTransformer<T, T> traceMaybe(@NonNull final String name) {
+    Preconditions.checkNotNull(name, "name is null");
+    return source -> Maybe.defer(() -> {
+      if (!PipelineTracer.isEnabled()) {
+        return source;
+      }
+      final PipelineTracer.Span span = PipelineTracer.span(name);
+      return source.doOnSubscribe(d -> span.subscribed())
+        .doOnSuccess(value -> {
+          span.item();
+          span.completed();
+        })
+        .doOnComplete(span::completed)
+        .doOnError(error -> span.failed())
+        .doOnDispose(span::disposed);
+    });
+  }
+
+  public static CompletableTransformer traceCompletable(@NonNull final String name) {
+    Preconditions.checkNotNull(name, "name is null");
+    return source -> Completable.defer(() -> {
+      if (!PipelineTracer.isEnabled()) {
+        return source;
+      }
+      final PipelineTracer.Span span = PipelineTracer.span(name);
+      return source.doOnSubscribe(d -> span.subscribed())
+        .doOnComplete(span::completed)
+        .doOnError(error -> span.failed())
+        .doOnDispose(span::disposed);
+    });
+  }
+
+  /**
+   * Tells if error is worth retrying, io errors and http 408, 429 and 5xx responses are;
+   * other http errors and programming errors are not
+   *
+   * @param error error of stream
+   * @return true if error is transient
+   */
+  public static boolean isTransient(@Nullable Throwable error) {
+    if (error instanceof HttpException) {
+      final int code = ((HttpException) error).code();
+      return code >= 500 || code == 408 || code == 429;
+    }
+    return error instanceof IOException;
+  }
+
+  private static void beginProgress(@Nullable ViewType view) {
+    if (view != null) {
+      ProgressCoordinator.of(view).begin();
+    }
+  }
+
+  private static void endProgress(@Nullable ViewType view) {
+    if (view != null) {
+      ProgressCoordinator.of(view).end();
+    }
   }
 
   private RxUtility() {
@@ -0,0 +1,49 @@
+/*
+ * MVVM Android Copyright (C) 2017 Fatih.
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.utils;
+
+import io.reactivex.Scheduler;
+
+public interface SchedulerProvider {
+
+  /**
+   * Scheduler for cpu bound work
+   *
+   * @return scheduler
+   */
+  Scheduler computation();
+
+  /**
+   * Scheduler for blocking work such as network or disk
+   *
+   * @return scheduler
+   */
+  Scheduler io();
+
+  /**
+   * Scheduler for parsing and mapping responses
+   *
+   * @return scheduler
+   */
+  Scheduler parsing();
+
+  /**
+   * Scheduler that results are delivered on
+   *
+   * @return scheduler
+   */
+  Scheduler main();
+}
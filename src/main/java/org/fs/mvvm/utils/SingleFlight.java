@@ -0,0 +1,72 @@
+/*
+ * MVVM Android Copyright (C) 2017 Fatih.
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.utils;
+
+import io.reactivex.Observable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Group of in-flight streams by key, concurrent subscribers of same key share one upstream
+ * subscription and its result. Items of a flight are replayed to subscribers that join after
+ * it started, so they are kept until it ends. Entry of a key is released when upstream
+ * terminates or when its last subscriber disposes, next subscriber of that key starts a new
+ * flight.
+ */
+public final class SingleFlight {
+
+  private final ConcurrentHashMap<Object, Flight<?>> flights = new ConcurrentHashMap<>();
+
+  public static SingleFlight create() {
+    return new SingleFlight();
+  }
+
+  private SingleFlight() {
+  }
+
+  @SuppressWarnings("unchecked")
+  <T> Observable<T> join(Object key, Observable<T> source) {
+    Flight<T> flight = (Flight<T>) flights.get(key);
+    if (flight == null) {
+      final Flight<T> newFlight = new Flight<>(key, source);
+      flight = (Flight<T>) flights.putIfAbsent(key, newFlight);
+      if (flight == null) {
+        flight = newFlight;
+      }
+    }
+    return flight.shared;
+  }
+
+  /**
+   * Count of keys that have a flight in progress
+   *
+   * @return count of flights
+   */
+  public int size() {
+    return flights.size();
+  }
+
+  private final class Flight<T> {
+
+    final Observable<T> shared;
+
+    Flight(Object key, Observable<T> source) {
+      this.shared = source
+          .doFinally(() -> flights.remove(key, this))
+          .replay()
+          .refCount();
+    }
+  }
+}
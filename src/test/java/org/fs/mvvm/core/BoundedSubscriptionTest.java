@@ -0,0 +1,205 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import io.reactivex.exceptions.MissingBackpressureException;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.TestScheduler;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BoundedSubscriptionTest {
+
+  private final List<Throwable> undeliverable = new ArrayList<>();
+
+  @Before public void setUp() {
+    RxJavaPlugins.setErrorHandler(undeliverable::add);
+  }
+
+  @After public void tearDown() {
+    RxJavaPlugins.reset();
+  }
+
+  @Test public void overflowOfErrorPolicyEndsQuietly() {
+    final BusManager bus = new BusManager();
+    final TestScheduler scheduler = new TestScheduler();
+    final List<TestEvent> received = new ArrayList<>();
+    final BoundedSubscription subscription = bus.register(TestEvent.class, received::add, scheduler, 2,
+        OverflowPolicy.ERROR);
+
+    for (int i = 0; i < 5; i++) {
+      bus.post(new TestEvent());
+    }
+    scheduler.triggerActions();
+
+    assertTrue(subscription.error() instanceof MissingBackpressureException);
+    assertTrue(subscription.isDisposed());
+    assertTrue(undeliverable.isEmpty());
+  }
+
+  @Test public void dropOldestKeepsSubscriberAlive() {
+    final BusManager bus = new BusManager();
+    final TestScheduler scheduler = new TestScheduler();
+    final List<TestEvent> received = new ArrayList<>();
+    final BoundedSubscription subscription = bus.register(TestEvent.class, received::add, scheduler, 2,
+        OverflowPolicy.DROP_OLDEST);
+
+    for (int i = 0; i < 5; i++) {
+      bus.post(new TestEvent(i));
+    }
+    scheduler.triggerActions();
+
+    assertNull(subscription.error());
+    assertEquals(3L, subscription.dropped());
+    assertEquals(2, received.size());
+    assertEquals(3, received.get(0).sequence);
+    assertEquals(4, received.get(1).sequence);
+  }
+
+  @Test public void keepLatestDeliversOnlyMostRecent() {
+    final BusManager bus = new BusManager();
+    final TestScheduler scheduler = new TestScheduler();
+    final List<TestEvent> received = new ArrayList<>();
+    final BoundedSubscription subscription = bus.register(TestEvent.class, received::add, scheduler, 8,
+        OverflowPolicy.KEEP_LATEST);
+
+    for (int i = 0; i < 5; i++) {
+      bus.post(new TestEvent(i));
+    }
+    scheduler.triggerActions();
+
+    assertEquals(4L, subscription.dropped());
+    assertEquals(1, received.size());
+    assertEquals(4, received.get(0).sequence);
+  }
+
+  @Test public void errorPolicyAcceptsUpToCapacity() {
+    final BusManager bus = new BusManager();
+    final TestScheduler scheduler = new TestScheduler();
+    final List<TestEvent> received = new ArrayList<>();
+    final BoundedSubscription subscription = bus.register(TestEvent.class, received::add, scheduler, 2,
+        OverflowPolicy.ERROR);
+
+    bus.post(new TestEvent());
+    bus.post(new TestEvent());
+    assertEquals(2, bus.subscriptions().get(0).pending());
+    scheduler.triggerActions();
+
+    assertNull(subscription.error());
+    assertEquals(0L, subscription.dropped());
+    assertEquals(2, received.size());
+  }
+
+  @Test public void failingConsumerIsReported() {
+    final BusManager bus = new BusManager();
+    final TestScheduler scheduler = new TestScheduler();
+    final BoundedSubscription subscription = bus.register(TestEvent.class, event -> {
+      throw new IllegalStateException("consumer failed");
+    }, scheduler, 2, OverflowPolicy.ERROR);
+
+    bus.post(new TestEvent());
+    scheduler.triggerActions();
+
+    assertTrue(subscription.error() instanceof IllegalStateException);
+    assertEquals(1, undeliverable.size());
+  }
+
+  @Test public void pooledEventsAreReleasedWhenDeliveredOrDropped() {
+    final BusManager bus = new BusManager();
+    final TestScheduler scheduler = new TestScheduler();
+    final List<Integer> recycled = new ArrayList<>();
+    final EventPool<PooledEvent> pool = EventPool.create(8, () -> new PooledEvent(recycled));
+    final List<Integer> received = new ArrayList<>();
+    final BoundedSubscription subscription = bus.register(PooledEvent.class, event -> received.add(event.sequence),
+        scheduler, 2, OverflowPolicy.DROP_OLDEST);
+
+    for (int i = 1; i <= 5; i++) {
+      final PooledEvent event = pool.acquire();
+      event.sequence = i;
+      send(bus, event);
+    }
+    // dropped ones are back in pool, buffered ones are kept until they are delivered
+    assertEquals(Arrays.asList(1, 2, 3), recycled);
+    scheduler.triggerActions();
+
+    assertEquals(3L, subscription.dropped());
+    assertEquals(Arrays.asList(4, 5), received);
+    assertEquals(Arrays.asList(1, 2, 3, 4, 5), recycled);
+  }
+
+  @Test public void pooledEventsAreReleasedOnDispose() {
+    final BusManager bus = new BusManager();
+    final TestScheduler scheduler = new TestScheduler();
+    final List<Integer> recycled = new ArrayList<>();
+    final EventPool<PooledEvent> pool = EventPool.create(8, () -> new PooledEvent(recycled));
+    final BoundedSubscription subscription = bus.register(PooledEvent.class, event -> { }, scheduler, 2,
+        OverflowPolicy.DROP_OLDEST);
+
+    final PooledEvent event = pool.acquire();
+    event.sequence = 1;
+    send(bus, event);
+    assertTrue(recycled.isEmpty());
+    subscription.dispose();
+
+    assertEquals(Arrays.asList(1), recycled);
+    assertSame(event, pool.acquire());
+  }
+
+  private static void send(BusManager bus, EventType event) {
+    try {
+      bus.post(event);
+    } finally {
+      AbstractRecyclableEvent.releaseIfRecyclable(event);
+    }
+  }
+
+  static final class PooledEvent extends AbstractRecyclableEvent {
+
+    private final List<Integer> recycled;
+    int sequence;
+
+    PooledEvent(List<Integer> recycled) {
+      this.recycled = recycled;
+    }
+
+    @Override protected void reset() {
+      recycled.add(sequence);
+      sequence = 0;
+    }
+  }
+
+  static final class TestEvent implements EventType {
+
+    final int sequence;
+
+    TestEvent() {
+      this(0);
+    }
+
+    TestEvent(int sequence) {
+      this.sequence = sequence;
+    }
+  }
+}
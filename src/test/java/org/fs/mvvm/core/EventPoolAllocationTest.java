@@ -0,0 +1,92 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class EventPoolAllocationTest {
+
+  private static final int WARM_UP = 50_000;
+  private static final int POSTS = 200_000;
+
+  private final EventPool<ProgressEvent> pool = EventPool.create(4, ProgressEvent::new);
+  private final BusManager bus = new BusManager();
+  private long received;
+  private int lastProgress;
+
+  @Test public void recyclesEventOnceSubscribersHaveSeenIt() {
+    final ProgressEvent first = pool.acquire();
+    send(first, 1);
+    final ProgressEvent second = pool.acquire();
+
+    assertSame(first, second);
+    assertEquals(0, second.progress);
+  }
+
+  @Test public void postsPooledEventsWithoutAllocating() {
+    final com.sun.management.ThreadMXBean threads = threadBean();
+    Assume.assumeTrue(threads != null && threads.isThreadAllocatedMemoryEnabled());
+    bus.register(ProgressEvent.class, event -> {
+      received++;
+      lastProgress = event.progress;
+    });
+
+    for (int i = 0; i < WARM_UP; i++) {
+      send(pool.acquire(), i);
+    }
+    final long thread = Thread.currentThread().getId();
+    final long before = threads.getThreadAllocatedBytes(thread);
+    for (int i = 0; i < POSTS; i++) {
+      send(pool.acquire(), i);
+    }
+    final long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+    assertEquals(WARM_UP + POSTS, received);
+    assertEquals(POSTS - 1, lastProgress);
+    // even one object per post would be several megabytes, what is left is measurement noise
+    assertTrue("allocated " + allocated + " bytes for " + POSTS + " posts", allocated < POSTS / 100);
+  }
+
+  private void send(ProgressEvent event, int progress) {
+    event.progress = progress;
+    // same as BusManager.send but on a bus that is not shared with other tests
+    try {
+      bus.post(event);
+    } finally {
+      AbstractRecyclableEvent.releaseIfRecyclable(event);
+    }
+  }
+
+  private static com.sun.management.ThreadMXBean threadBean() {
+    final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    return threads instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) threads : null;
+  }
+
+  static final class ProgressEvent extends AbstractRecyclableEvent {
+
+    int progress;
+
+    @Override protected void reset() {
+      progress = 0;
+    }
+  }
+}
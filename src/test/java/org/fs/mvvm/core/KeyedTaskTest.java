@@ -0,0 +1,86 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class KeyedTaskTest {
+
+  private final AtomicInteger first = new AtomicInteger();
+  private final AtomicInteger second = new AtomicInteger();
+
+  @Test public void equalKeysShareOneTask() {
+    ThreadManager.debounce(new String("search"), first::incrementAndGet, 300L);
+    final KeyedTask task = task("search");
+    System.gc();
+    ThreadManager.debounce(new String("search"), second::incrementAndGet, 300L);
+    System.gc();
+
+    assertSame(task, task("search"));
+    task.run();
+
+    assertEquals(0, first.get());
+    assertEquals(1, second.get());
+    assertNull(task("search"));
+  }
+
+  @Test public void throttledKeyIsKeptUntilWindowEnds() {
+    ThreadManager.throttle(new String("scroll"), first::incrementAndGet, 1000L);
+    final KeyedTask task = task("scroll");
+    task.run();
+    System.gc();
+
+    // still in window of first run, so this one has to wait for it instead of running now
+    assertSame(task, task("scroll"));
+    ThreadManager.throttle(new String("scroll"), second::incrementAndGet, 1000L);
+    assertSame(task, task("scroll"));
+    task.run();
+    // message that only marks end of window
+    task.run();
+
+    assertEquals(1, first.get());
+    assertEquals(1, second.get());
+    assertNull(task("scroll"));
+  }
+
+  @Test public void boxedKeysCancelByValue() {
+    final Long id = Long.valueOf(100000L);
+    final Long same = Long.valueOf(100000L);
+    assertNotSame(id, same);
+
+    ThreadManager.coalesce(id, first::incrementAndGet);
+    final KeyedTask task = task(same);
+    assertNotNull(task);
+    ThreadManager.cancel(same);
+    task.run();
+
+    assertEquals(0, first.get());
+    assertNull(task(id));
+  }
+
+  private static KeyedTask task(Object key) {
+    synchronized (ThreadManager.keyedTasks) {
+      return ThreadManager.keyedTasks.get(key);
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class PriorityDispatcherTest {
+
+  private final BusManager bus = new BusManager();
+  private final List<Integer> received = new ArrayList<>();
+
+  @Test public void highLaneGoesBeforeLowerLanes() {
+    final PriorityDispatcher dispatcher = new PriorityDispatcher(bus, TimeUnit.SECONDS.toNanos(1L));
+    bus.register(LaneEvent.class, event -> received.add(event.id));
+
+    dispatcher.offer(new LaneEvent(1), Priority.LOW);
+    dispatcher.offer(new LaneEvent(2), Priority.NORMAL);
+    dispatcher.offer(new LaneEvent(3), Priority.HIGH);
+    dispatcher.run();
+
+    assertEquals(Arrays.asList(3, 2, 1), received);
+  }
+
+  @Test public void floodOfHighEventsIsBoundedByBudget() {
+    final PriorityDispatcher dispatcher = new PriorityDispatcher(bus, TimeUnit.MILLISECONDS.toNanos(5L));
+    bus.register(LaneEvent.class, event -> {
+      received.add(event.id);
+      Thread.sleep(1L);
+    });
+
+    for (int i = 0; i < 100; i++) {
+      dispatcher.offer(new LaneEvent(i), Priority.HIGH);
+    }
+    dispatcher.run();
+
+    final int firstCycle = received.size();
+    assertTrue("first cycle sent " + firstCycle, firstCycle > 0 && firstCycle < 100);
+    while (received.size() < 100) {
+      dispatcher.run();
+    }
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i, (int) received.get(i));
+    }
+  }
+
+  static final class LaneEvent implements EventType {
+
+    final int id;
+
+    LaneEvent(int id) {
+      this.id = id;
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.Subject;
+import io.reactivex.subjects.PublishSubject;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.fs.mvvm.core.RingBufferDispatcherTest.SequenceEvent;
+
+/**
+ * Throughput of many producers posting to bus through {@link RingBufferDispatcher}, against
+ * posting through a serialized {@link PublishSubject} on producer threads and observed on one
+ * consumer thread. Not part of unit tests, run its main on a desktop jvm.
+ */
+public final class RingBufferDispatcherBenchmark {
+
+  private final static int PRODUCERS = 4;
+  private final static int EVENTS = 250000;
+  private final static int ROUNDS = 5;
+
+  private RingBufferDispatcherBenchmark() {
+    throw new IllegalArgumentException("you can not have instance of this object.");
+  }
+
+  public static void main(String... args) throws Exception {
+    final ExecutorService producers = Executors.newFixedThreadPool(PRODUCERS);
+    final ExecutorService consumer = Executors.newSingleThreadExecutor();
+    try {
+      for (int round = 0; round < ROUNDS; round++) {
+        report("serialized subject", serializedSubject(producers, null));
+        report("serialized subject observed on consumer", serializedSubject(producers, consumer));
+        report("ring buffer", ringBuffer(producers, consumer));
+      }
+    } finally {
+      producers.shutdownNow();
+      consumer.shutdownNow();
+    }
+  }
+
+  // without consumer events are posted on producer threads, otherwise all are posted on consumer
+  private static long serializedSubject(ExecutorService producers, ExecutorService consumer) throws InterruptedException {
+    final BusManager bus = new BusManager();
+    final CountDownLatch delivered = new CountDownLatch(PRODUCERS * EVENTS);
+    bus.register(SequenceEvent.class, event -> delivered.countDown());
+    final Subject<EventType> subject = PublishSubject.<EventType>create().toSerialized();
+    if (consumer == null) {
+      subject.subscribe(bus::post);
+    } else {
+      subject.observeOn(Schedulers.from(consumer), false, 1024).subscribe(bus::post);
+    }
+    return measure(producers, delivered, event -> {
+      subject.onNext(event);
+      return true;
+    });
+  }
+
+  private static long ringBuffer(ExecutorService producers, ExecutorService consumer) throws InterruptedException {
+    final BusManager bus = new BusManager();
+    final RingBufferDispatcher dispatcher = new RingBufferDispatcher(bus, Schedulers.from(consumer), 1024, 64);
+    final CountDownLatch delivered = new CountDownLatch(PRODUCERS * EVENTS);
+    bus.register(SequenceEvent.class, event -> delivered.countDown());
+    return measure(producers, delivered, dispatcher::offer);
+  }
+
+  private static long measure(ExecutorService producers, CountDownLatch delivered, Sink sink) throws InterruptedException {
+    final CountDownLatch start = new CountDownLatch(1);
+    for (int producer = 0; producer < PRODUCERS; producer++) {
+      final int id = producer;
+      producers.execute(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException error) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        for (int sequence = 0; sequence < EVENTS; sequence++) {
+          final SequenceEvent event = new SequenceEvent(id, sequence);
+          while (!sink.offer(event)) {
+            Thread.yield();
+          }
+        }
+      });
+    }
+    final long begin = System.nanoTime();
+    start.countDown();
+    if (!delivered.await(60L, TimeUnit.SECONDS)) {
+      throw new IllegalStateException("events were lost");
+    }
+    return System.nanoTime() - begin;
+  }
+
+  private static void report(String name, long nanos) {
+    final long events = (long) PRODUCERS * EVENTS;
+    System.out.println(name + ": " + events + " events from " + PRODUCERS + " producers in "
+        + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms, " + (events * 1000000000L / Math.max(1L, nanos))
+        + " events/s");
+  }
+
+  private interface Sink {
+
+    boolean offer(EventType event);
+  }
+}
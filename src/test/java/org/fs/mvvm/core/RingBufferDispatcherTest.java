@@ -0,0 +1,145 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RingBufferDispatcherTest {
+
+  private final static int PRODUCERS = 4;
+  private final static int EVENTS = 250000;
+
+  private ExecutorService consumer;
+  private ExecutorService producers;
+
+  @Before public void setUp() {
+    consumer = Executors.newSingleThreadExecutor();
+    producers = Executors.newFixedThreadPool(PRODUCERS);
+  }
+
+  @After public void tearDown() {
+    consumer.shutdownNow();
+    producers.shutdownNow();
+  }
+
+  @Test public void deliversEveryEventOnceInProducerOrder() throws Exception {
+    final BusManager bus = new BusManager();
+    final Scheduler scheduler = Schedulers.from(consumer);
+    final RingBufferDispatcher dispatcher = new RingBufferDispatcher(bus, scheduler, 1024, 64);
+
+    // consumer runs on a single thread, so these are only written by it
+    final int[] next = new int[PRODUCERS];
+    final AtomicInteger outOfOrder = new AtomicInteger(0);
+    final CountDownLatch delivered = new CountDownLatch(PRODUCERS * EVENTS);
+    bus.register(SequenceEvent.class, event -> {
+      if (next[event.producer] != event.sequence) {
+        outOfOrder.incrementAndGet();
+      }
+      next[event.producer] = event.sequence + 1;
+      delivered.countDown();
+    });
+
+    produce(dispatcher);
+
+    assertTrue("events were lost", delivered.await(30L, TimeUnit.SECONDS));
+    assertEquals(0, outOfOrder.get());
+    for (int producer = 0; producer < PRODUCERS; producer++) {
+      assertEquals(EVENTS, next[producer]);
+    }
+    assertEquals(0, dispatcher.size());
+  }
+
+  @Test public void rejectsWhenFullAndDeliversWhatWasAccepted() throws Exception {
+    final BusManager bus = new BusManager();
+    final CountDownLatch blocked = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicInteger received = new AtomicInteger(0);
+    final RingBufferDispatcher dispatcher = new RingBufferDispatcher(bus, Schedulers.from(consumer), 8, 64);
+    bus.register(SequenceEvent.class, event -> {
+      if (received.getAndIncrement() == 0) {
+        blocked.countDown();
+        release.await();
+      }
+    });
+
+    assertTrue(dispatcher.offer(new SequenceEvent(0, 0)));
+    assertTrue(blocked.await(5L, TimeUnit.SECONDS));
+    int accepted = 1;
+    for (int i = 1; i < 32; i++) {
+      if (dispatcher.offer(new SequenceEvent(0, i))) {
+        accepted++;
+      }
+    }
+    assertEquals(9, accepted);
+    assertEquals(23L, dispatcher.rejected());
+
+    release.countDown();
+    consumer.submit(() -> { }).get(5L, TimeUnit.SECONDS);
+    assertEquals(accepted, received.get());
+  }
+
+  private void produce(RingBufferDispatcher dispatcher) throws InterruptedException {
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(PRODUCERS);
+    for (int producer = 0; producer < PRODUCERS; producer++) {
+      final int id = producer;
+      producers.execute(() -> {
+        awaitQuietly(start);
+        for (int sequence = 0; sequence < EVENTS; sequence++) {
+          final SequenceEvent event = new SequenceEvent(id, sequence);
+          // a full buffer rejects, producer retries so no event is skipped
+          while (!dispatcher.offer(event)) {
+            Thread.yield();
+          }
+        }
+        done.countDown();
+      });
+    }
+    start.countDown();
+    done.await();
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException error) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  static final class SequenceEvent implements EventType {
+
+    final int producer;
+    final int sequence;
+
+    SequenceEvent(int producer, int sequence) {
+      this.producer = producer;
+      this.sequence = sequence;
+    }
+  }
+}
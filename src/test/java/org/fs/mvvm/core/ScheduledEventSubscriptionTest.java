@@ -0,0 +1,156 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.fs.mvvm.utils.BoundedSchedulerProvider;
+import org.fs.mvvm.utils.RxUtility;
+import org.fs.mvvm.utils.SchedulerProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ScheduledEventSubscriptionTest {
+
+  private final static int SUBSCRIBERS = 40;
+  private final static int EVENTS = 100;
+
+  private final CountingScheduler io = new CountingScheduler();
+
+  @Before public void setUp() {
+    RxUtility.setSchedulerProvider(new TestProvider(io));
+  }
+
+  @After public void tearDown() {
+    RxUtility.setSchedulerProvider(BoundedSchedulerProvider.create());
+  }
+
+  @Test public void idleSubscribersDoNotHoldWorkers() throws Exception {
+    final BusManager bus = new BusManager();
+    final CountDownLatch delivered = new CountDownLatch(SUBSCRIBERS * EVENTS);
+    final AtomicInteger outOfOrder = new AtomicInteger(0);
+    for (int i = 0; i < SUBSCRIBERS; i++) {
+      // each subscription is drained by one drain at a time, so this is not shared
+      final int[] next = new int[1];
+      bus.register(SequenceEvent.class, event -> {
+        if (next[0]++ != event.sequence) {
+          outOfOrder.incrementAndGet();
+        }
+        delivered.countDown();
+      }, DeliveryTarget.IO);
+    }
+    assertEquals(0, io.live.get());
+
+    for (int sequence = 0; sequence < EVENTS; sequence++) {
+      bus.post(new SequenceEvent(sequence));
+    }
+
+    assertTrue("events were lost", delivered.await(10L, TimeUnit.SECONDS));
+    assertEquals(0, outOfOrder.get());
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+    while (io.live.get() != 0 && System.nanoTime() < deadline) {
+      Thread.sleep(10L);
+    }
+    assertEquals(0, io.live.get());
+  }
+
+  @Test public void disposedSubscriptionIsNotDelivered() throws Exception {
+    final BusManager bus = new BusManager();
+    final AtomicInteger received = new AtomicInteger(0);
+    final Disposable subscription = bus.register(SequenceEvent.class, event -> received.incrementAndGet(),
+        DeliveryTarget.IO);
+    subscription.dispose();
+
+    bus.post(new SequenceEvent(0));
+    Thread.sleep(50L);
+
+    assertEquals(0, received.get());
+    assertEquals(0, io.live.get());
+  }
+
+  static final class SequenceEvent implements EventType {
+
+    final int sequence;
+
+    SequenceEvent(int sequence) {
+      this.sequence = sequence;
+    }
+  }
+
+  static final class TestProvider implements SchedulerProvider {
+
+    private final Scheduler io;
+
+    TestProvider(Scheduler io) {
+      this.io = io;
+    }
+
+    @Override public Scheduler computation() {
+      return Schedulers.computation();
+    }
+
+    @Override public Scheduler io() {
+      return io;
+    }
+
+    @Override public Scheduler parsing() {
+      return Schedulers.computation();
+    }
+
+    @Override public Scheduler main() {
+      return Schedulers.trampoline();
+    }
+  }
+
+  // io scheduler that counts workers, each one of them pins a cached thread until it is disposed
+  static final class CountingScheduler extends Scheduler {
+
+    final AtomicInteger live = new AtomicInteger(0);
+
+    @Override public Worker createWorker() {
+      live.incrementAndGet();
+      final Worker actual = Schedulers.io().createWorker();
+      return new Worker() {
+
+        private final AtomicBoolean disposed = new AtomicBoolean(false);
+
+        @Override public Disposable schedule(Runnable run, long delay, TimeUnit unit) {
+          return actual.schedule(run, delay, unit);
+        }
+
+        @Override public void dispose() {
+          if (disposed.compareAndSet(false, true)) {
+            live.decrementAndGet();
+            actual.dispose();
+          }
+        }
+
+        @Override public boolean isDisposed() {
+          return disposed.get();
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import io.reactivex.plugins.RxJavaPlugins;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StickyDeliveryTest {
+
+  private final ExecutorService other = Executors.newSingleThreadExecutor();
+  private final List<Throwable> errors = new ArrayList<>();
+
+  @Before public void setUp() {
+    RxJavaPlugins.setErrorHandler(errors::add);
+  }
+
+  @After public void tearDown() {
+    other.shutdownNow();
+    RxJavaPlugins.reset();
+  }
+
+  @Test public void replaysStickyEventOnce() {
+    final BusManager bus = new BusManager();
+    final StateEvent state = new StateEvent();
+    bus.postSticky(state);
+
+    final List<StateEvent> received = new ArrayList<>();
+    bus.registerSticky(StateEvent.class, received::add);
+    // live delivery of same sticky sequence that raced with registration
+    bus.dispatch(state, 0L);
+
+    assertEquals(1, received.size());
+    assertSame(state, received.get(0));
+  }
+
+  @Test public void dropsReplayOlderThanLiveEvent() {
+    final BusManager bus = new BusManager();
+    bus.configureSticky(2, 60000L);
+    final StateEvent older = new StateEvent();
+    final StateEvent newer = new StateEvent();
+    bus.postSticky(older);
+    bus.postSticky(newer);
+
+    final List<StateEvent> received = new ArrayList<>();
+    final StickyEventSubscription<StateEvent> subscription = new StickyEventSubscription<>(bus, StateEvent.class, received::add);
+    subscription.deliver(newer, 1L);
+    subscription.deliver(older, 0L);
+
+    assertEquals(1, received.size());
+    assertSame(newer, received.get(0));
+  }
+
+  @Test(timeout = 5000L) public void callbackCanWaitForStickyPostOfAnotherThread() throws Exception {
+    final BusManager bus = new BusManager();
+    bus.postSticky(new StateEvent());
+
+    final List<OtherEvent> received = new ArrayList<>();
+    bus.register(OtherEvent.class, received::add);
+    // replayed callback blocks on another thread that posts sticky, it used to wait for lock
+    // held around replay
+    bus.registerSticky(StateEvent.class, event ->
+        other.submit(() -> bus.postSticky(new OtherEvent())).get(2L, TimeUnit.SECONDS));
+
+    assertEquals(0, errors.size());
+    assertEquals(1, received.size());
+  }
+
+  static final class StateEvent implements EventType {
+  }
+
+  static final class OtherEvent implements EventType {
+  }
+}
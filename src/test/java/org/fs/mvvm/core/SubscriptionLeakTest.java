@@ -0,0 +1,154 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.arch.lifecycle.Lifecycle;
+import android.arch.lifecycle.LifecycleObserver;
+import android.arch.lifecycle.LifecycleOwner;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class SubscriptionLeakTest {
+
+  private static final int SCREENS = 20;
+
+  private final BusManager bus = new BusManager();
+
+  @Test public void weakSubscribersDoNotKeepScreensReachable() {
+    final List<WeakReference<Screen>> screens = new ArrayList<>();
+    for (int i = 0; i < SCREENS; i++) {
+      final Screen screen = new Screen();
+      bus.registerWeak(screen, TickEvent.class, Screen::onTick);
+      screens.add(new WeakReference<>(screen));
+    }
+    assertEquals(SCREENS, bus.subscriptions().size());
+
+    awaitCollected(screens);
+    bus.post(new TickEvent());
+
+    assertEquals(0, bus.subscriptions().size());
+  }
+
+  @Test public void weakSubscriberReceivesEventsWhileReachable() {
+    final Screen screen = new Screen();
+    bus.registerWeak(screen, TickEvent.class, Screen::onTick);
+
+    bus.post(new TickEvent());
+    bus.post(new TickEvent());
+
+    assertEquals(2, screen.ticks);
+    assertEquals(1, bus.subscriptions().size());
+  }
+
+  @Test public void lifecycleSubscribersAreDisposedOnDestroy() {
+    final List<WeakReference<Screen>> screens = new ArrayList<>();
+    for (int i = 0; i < SCREENS; i++) {
+      final Screen screen = new Screen();
+      // consumer captures screen, only lifecycle can release it
+      bus.register(screen, TickEvent.class, event -> screen.ticks++);
+      screens.add(new WeakReference<>(screen));
+      screen.lifecycle.destroy();
+    }
+
+    assertEquals(0, bus.subscriptions().size());
+    awaitCollected(screens);
+  }
+
+  @Test public void strongSubscribersKeepScreensReachable() {
+    final Screen screen = new Screen();
+    final WeakReference<Screen> reference = new WeakReference<>(screen);
+    bus.register(TickEvent.class, event -> screen.ticks++);
+    gc();
+
+    // this is the leak weak and lifecycle subscriptions exist for
+    assertNotNull(reference.get());
+    assertEquals(1, bus.subscriptions().size());
+  }
+
+  private static void awaitCollected(List<WeakReference<Screen>> screens) {
+    for (int i = 0; i < 50 && !allCollected(screens); i++) {
+      gc();
+    }
+    assertTrue("screens are still reachable", allCollected(screens));
+  }
+
+  private static boolean allCollected(List<WeakReference<Screen>> screens) {
+    for (WeakReference<Screen> screen : screens) {
+      if (screen.get() != null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void gc() {
+    System.gc();
+    try {
+      Thread.sleep(10L);
+    } catch (InterruptedException ignored) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  static final class TickEvent implements EventType { }
+
+  static final class Screen implements LifecycleOwner {
+
+    // stands in for view hierarchy that a leaked screen would retain
+    final byte[] views = new byte[256 * 1024];
+    final TestLifecycle lifecycle = new TestLifecycle();
+    int ticks;
+
+    void onTick(TickEvent event) {
+      ticks++;
+    }
+
+    @Override public Lifecycle getLifecycle() {
+      return lifecycle;
+    }
+  }
+
+  static final class TestLifecycle extends Lifecycle {
+
+    private final List<LifecycleObserver> observers = new ArrayList<>();
+    private State state = State.RESUMED;
+
+    void destroy() {
+      state = State.DESTROYED;
+      for (LifecycleObserver observer : new ArrayList<>(observers)) {
+        ((LifecycleEventSubscription<?>) observer).onDestroy();
+      }
+    }
+
+    @Override public void addObserver(LifecycleObserver observer) {
+      observers.add(observer);
+    }
+
+    @Override public void removeObserver(LifecycleObserver observer) {
+      observers.remove(observer);
+    }
+
+    @Override public State getCurrentState() {
+      return state;
+    }
+  }
+}
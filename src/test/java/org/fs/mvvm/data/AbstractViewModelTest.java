@@ -0,0 +1,83 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.data;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.arch.lifecycle.Lifecycle;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+import java.lang.reflect.Proxy;
+import org.junit.Test;
+
+public class AbstractViewModelTest {
+
+  private final TestViewModel viewModel = new TestViewModel();
+
+  @Test public void disposesOnBoundEventOnly() {
+    final Disposable onPause = viewModel.bind(Lifecycle.Event.ON_PAUSE);
+    final Disposable onStop = viewModel.bind(Lifecycle.Event.ON_STOP);
+
+    viewModel.dispatchLifecycleEvent(Lifecycle.Event.ON_PAUSE);
+
+    assertTrue(onPause.isDisposed());
+    assertFalse(onStop.isDisposed());
+  }
+
+  @Test public void destroyDisposesWhatIsBoundToEventsThatPassed() {
+    viewModel.dispatchLifecycleEvent(Lifecycle.Event.ON_PAUSE);
+    viewModel.dispatchLifecycleEvent(Lifecycle.Event.ON_STOP);
+    // bound from onStop, after last pause, stop and resume of view
+    final Disposable onPause = viewModel.bind(Lifecycle.Event.ON_PAUSE);
+    final Disposable onStop = viewModel.bind(Lifecycle.Event.ON_STOP);
+    final Disposable onResume = viewModel.bind(Lifecycle.Event.ON_RESUME);
+
+    viewModel.dispatchLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+
+    assertTrue(onPause.isDisposed());
+    assertTrue(onStop.isDisposed());
+    assertTrue(onResume.isDisposed());
+  }
+
+  @Test public void disposesRightAwayAfterDestroy() {
+    viewModel.dispatchLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+
+    assertTrue(viewModel.bind(Lifecycle.Event.ON_PAUSE).isDisposed());
+  }
+
+  static final class TestViewModel extends AbstractViewModel<ViewType> {
+
+    TestViewModel() {
+      super((ViewType) Proxy.newProxyInstance(ViewType.class.getClassLoader(), new Class<?>[] { ViewType.class },
+          (proxy, method, args) -> null));
+    }
+
+    Disposable bind(Lifecycle.Event event) {
+      final Disposable disposable = Disposables.empty();
+      disposeOn(event, disposable);
+      return disposable;
+    }
+
+    @Override protected boolean isLogEnabled() {
+      return false;
+    }
+
+    @Override protected String getClassTag() {
+      return TestViewModel.class.getSimpleName();
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import io.reactivex.Single;
+import java.io.IOException;
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.fs.mvvm.net.converter.GsonConverterFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import retrofit2.HttpException;
+import retrofit2.Retrofit;
+import retrofit2.http.GET;
+
+public class ResponseCacheTest {
+
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  private final MockWebServer server = new MockWebServer();
+
+  private ResponseCache cache;
+  private Cache disk;
+  private Service service;
+
+  interface Service {
+
+    @Cached(maxAge = 60L)
+    @GET("user")
+    Single<User> cacheFirst();
+
+    @Cached(CachePolicy.NETWORK_FIRST)
+    @GET("feed")
+    Single<User> networkFirst();
+
+    @Cached(maxAge = 0L)
+    @GET("profile")
+    Single<User> revalidate();
+  }
+
+  static final class User {
+
+    String name;
+  }
+
+  @Before public void setUp() throws IOException {
+    server.start();
+    cache = ResponseCache.create(16);
+    disk = new Cache(folder.newFolder("http"), 1024L * 1024L);
+    service = new Retrofit.Builder()
+        .baseUrl(server.url("/"))
+        .client(new OkHttpClient.Builder().cache(disk).build())
+        .addConverterFactory(GsonConverterFactory.create())
+        .addCallAdapterFactory(RxJava2CallAdapterFactory.create().withCache(cache))
+        .build()
+        .create(Service.class);
+  }
+
+  @After public void tearDown() throws IOException {
+    server.shutdown();
+    disk.close();
+  }
+
+  @Test public void cacheFirstAnswersFromMemory() {
+    server.enqueue(new MockResponse().setBody("{\"name\":\"fatih\"}"));
+
+    final User first = service.cacheFirst().blockingGet();
+    final User second = service.cacheFirst().blockingGet();
+
+    assertEquals("fatih", first.name);
+    // decoded body itself is returned, no request and no parsing
+    assertEquals(first, second);
+    assertEquals(1, server.getRequestCount());
+    assertEquals(1, cache.size());
+  }
+
+  @Test public void cacheFirstDoesNotKeepErrors() {
+    server.enqueue(new MockResponse().setResponseCode(500));
+    server.enqueue(new MockResponse().setBody("{\"name\":\"fatih\"}"));
+
+    service.cacheFirst().test().assertError(HttpException.class);
+    assertEquals("fatih", service.cacheFirst().blockingGet().name);
+    assertEquals(2, server.getRequestCount());
+  }
+
+  @Test public void networkFirstFallsBackToMemoryOnIoError() throws IOException {
+    server.enqueue(new MockResponse().setBody("{\"name\":\"fatih\"}"));
+    final User first = service.networkFirst().blockingGet();
+
+    server.shutdown();
+
+    assertEquals(first, service.networkFirst().blockingGet());
+  }
+
+  @Test public void networkFirstGoesToNetworkWhenItCan() {
+    server.enqueue(new MockResponse().setBody("{\"name\":\"fatih\"}"));
+    server.enqueue(new MockResponse().setBody("{\"name\":\"ilk\"}"));
+
+    assertEquals("fatih", service.networkFirst().blockingGet().name);
+    assertEquals("ilk", service.networkFirst().blockingGet().name);
+    assertEquals(2, server.getRequestCount());
+  }
+
+  @Test public void expiredEntryIsRevalidatedFromDisk() throws InterruptedException {
+    server.enqueue(new MockResponse()
+        .setHeader("ETag", "\"v1\"")
+        .setHeader("Cache-Control", "no-cache")
+        .setBody("{\"name\":\"fatih\"}"));
+    server.enqueue(new MockResponse().setResponseCode(304));
+
+    assertEquals("fatih", service.revalidate().blockingGet().name);
+    // memory entry is too old, okhttp sends conditional request and reads 304 from disk
+    assertEquals("fatih", service.revalidate().blockingGet().name);
+
+    final RecordedRequest initial = server.takeRequest();
+    final RecordedRequest conditional = server.takeRequest();
+    assertNull(initial.getHeader("If-None-Match"));
+    assertEquals("\"v1\"", conditional.getHeader("If-None-Match"));
+    assertEquals(1, disk.hitCount());
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * MVVM Copyright (C) 2016 Fatih.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.net.converter;
+
+import static org.junit.Assert.assertNotEquals;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import io.reactivex.Flowable;
+import io.reactivex.subscribers.TestSubscriber;
+import java.util.concurrent.TimeUnit;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import org.junit.Test;
+
+public class GsonStreamingResponseBodyConverterTest {
+
+  private static final MediaType JSON = MediaType.parse("application/json");
+
+  private final TypeAdapter<Integer> adapter = new Gson().getAdapter(Integer.class);
+
+  @Test public void skipsNullElementsWithoutUsingRequests() throws Exception {
+    final Flowable<Integer> elements = convert("[1,null,2,3]");
+    final TestSubscriber<Integer> subscriber = elements.test(0L);
+
+    subscriber.requestMore(1L);
+    subscriber.awaitCount(1);
+    subscriber.requestMore(1L);
+    subscriber.awaitCount(2);
+    subscriber.assertValues(1, 2).assertNotComplete();
+
+    subscriber.requestMore(Long.MAX_VALUE);
+    subscriber.awaitDone(5L, TimeUnit.SECONDS);
+    subscriber.assertResult(1, 2, 3);
+  }
+
+  @Test public void streamsNestedArray() throws Exception {
+    final Flowable<Integer> elements = new GsonStreamingResponseBodyConverter<>(adapter,
+        new String[] { "data", "items" }).convert(body("{\"page\":1,\"data\":{\"items\":[4,5]}}"));
+    elements.test().awaitDone(5L, TimeUnit.SECONDS).assertResult(4, 5);
+  }
+
+  @Test public void readsBodyOffRequestingThread() throws Exception {
+    final Thread caller = Thread.currentThread();
+    final Thread[] reader = new Thread[1];
+    convert("[1]")
+        .doOnNext(element -> reader[0] = Thread.currentThread())
+        .test()
+        .awaitDone(5L, TimeUnit.SECONDS)
+        .assertResult(1);
+    assertNotEquals(caller, reader[0]);
+  }
+
+  @Test public void failsSecondSubscription() throws Exception {
+    final Flowable<Integer> elements = convert("[1]");
+    elements.test().awaitDone(5L, TimeUnit.SECONDS).assertResult(1);
+    elements.test().awaitDone(5L, TimeUnit.SECONDS).assertError(IllegalStateException.class);
+  }
+
+  private Flowable<Integer> convert(String json) {
+    return new GsonStreamingResponseBodyConverter<>(adapter, new String[0]).convert(body(json));
+  }
+
+  private static ResponseBody body(String json) {
+    return ResponseBody.create(JSON, json);
+  }
+}
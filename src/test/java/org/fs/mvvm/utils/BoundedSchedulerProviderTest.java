@@ -0,0 +1,56 @@
+/*
+ * MVVM Android Copyright (C) 2017 Fatih.
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.utils;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.Schedulers;
+import org.junit.After;
+import org.junit.Test;
+
+public class BoundedSchedulerProviderTest {
+
+  @After public void tearDown() {
+    RxJavaPlugins.reset();
+  }
+
+  @Test public void schedulersGoThroughPluginHandlers() {
+    final BoundedSchedulerProvider provider = BoundedSchedulerProvider.create(1, 1, 1);
+    final Scheduler trampoline = Schedulers.trampoline();
+    assertNotSame(trampoline, provider.io());
+
+    RxJavaPlugins.setIoSchedulerHandler(scheduler -> trampoline);
+    RxJavaPlugins.setComputationSchedulerHandler(scheduler -> trampoline);
+
+    assertSame(trampoline, provider.io());
+    assertSame(trampoline, provider.computation());
+    assertSame(trampoline, provider.parsing());
+  }
+
+  @Test public void parseRunsOnParsingPool() {
+    RxUtility.setSchedulerProvider(BoundedSchedulerProvider.create(1, 1, 1));
+    final String thread = Single.just(1)
+        .compose(RxUtility.<Integer>parseSingle())
+        .map(value -> Thread.currentThread().getName())
+        .blockingGet();
+    assertTrue(thread, thread.startsWith("mvvm-parsing-"));
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * MVVM Android Copyright (C) 2017 Fatih.
+ *  
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fs.mvvm.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.SingleSubject;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+public class SingleFlightTest {
+
+  @Test public void sharesOneSubscriptionAmongConcurrentSubscribers() {
+    final SingleFlight group = SingleFlight.create();
+    final AtomicInteger subscriptions = new AtomicInteger(0);
+    final SingleSubject<String> upstream = SingleSubject.create();
+    final Single<String> source = upstream.doOnSubscribe(d -> subscriptions.incrementAndGet())
+        .compose(RxUtility.singleFlightSingle(group, "key"));
+
+    final TestObserver<String> first = source.test();
+    final TestObserver<String> second = source.test();
+    assertEquals(1, group.size());
+    upstream.onSuccess("value");
+
+    first.assertResult("value");
+    second.assertResult("value");
+    assertEquals(1, subscriptions.get());
+    assertEquals(0, group.size());
+  }
+
+  @Test public void joinerBetweenValueAndCompletionStillGetsValue() {
+    final SingleFlight group = SingleFlight.create();
+    final AtomicInteger subscriptions = new AtomicInteger(0);
+    final Single<String> source = Single.fromCallable(() -> "value" + subscriptions.incrementAndGet());
+    final Single<String> flight = source.compose(RxUtility.singleFlightSingle(group, "key"));
+
+    // late subscriber joins from item callback of first one, when shared flight has emitted
+    // its value but not completed yet
+    final AtomicReference<TestObserver<String>> late = new AtomicReference<>();
+    final TestObserver<String> first = source.toObservable()
+        .compose(RxUtility.<String>singleFlightObservable(group, "key"))
+        .doOnNext(value -> late.set(flight.test()))
+        .test();
+
+    first.assertResult("value1");
+    late.get().assertResult("value1");
+    assertEquals(1, subscriptions.get());
+  }
+
+  @Test public void joinerInMiddleOfFlightGetsEveryItem() {
+    final SingleFlight group = SingleFlight.create();
+    final AtomicInteger subscriptions = new AtomicInteger(0);
+    final Observable<Integer> flight = Observable.just(1, 2, 3)
+        .doOnSubscribe(d -> subscriptions.incrementAndGet())
+        .compose(RxUtility.<Integer>singleFlightObservable(group, "key"));
+
+    final AtomicReference<TestObserver<Integer>> late = new AtomicReference<>();
+    final TestObserver<Integer> first = flight
+        .doOnNext(value -> {
+          if (value == 1) {
+            late.set(flight.test());
+          }
+        })
+        .test();
+
+    first.assertResult(1, 2, 3);
+    late.get().assertResult(1, 2, 3);
+    assertEquals(1, subscriptions.get());
+    assertEquals(0, group.size());
+  }
+
+  @Test public void subscriberAfterFlightEndedStartsNewOne() {
+    final SingleFlight group = SingleFlight.create();
+    final AtomicInteger subscriptions = new AtomicInteger(0);
+    final Single<Integer> flight = Single.fromCallable(subscriptions::incrementAndGet)
+        .compose(RxUtility.singleFlightSingle(group, "key"));
+
+    flight.test().assertResult(1);
+    flight.test().assertResult(2);
+  }
+}